@@ -0,0 +1,106 @@
+package com.tomspizza.k8api.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tomspizza.k8api.cache.DeploymentProjectionCache;
+import com.tomspizza.k8api.dto.DeploymentDto;
+import com.tomspizza.k8api.dto.DeploymentFields;
+import com.tomspizza.k8api.util.DateUtil;
+import io.fabric8.kubernetes.api.model.apps.Deployment;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class DeploymentDtoBenchmark {
+
+    private static final String URL = "http://10.0.0.1";
+
+    private static final String CLUSTER = "default";
+
+    @Param({"100", "10000", "100000"})
+    private int size;
+
+    private List<Deployment> deployments;
+
+    private List<DeploymentDto> dtos;
+
+    private ObjectMapper objectMapper;
+
+    private DeploymentProjectionCache projectionCache;
+
+    @Setup
+    public void setup() {
+        deployments = DeploymentFixtures.deployments(size);
+        dtos = map();
+        objectMapper = new ObjectMapper().setFilterProvider(DeploymentFields.ALL);
+        projectionCache = new DeploymentProjectionCache(size);
+        cachedMap();
+    }
+
+    @Benchmark
+    public List<DeploymentDto> mapping() {
+        return map();
+    }
+
+    @Benchmark
+    public List<DeploymentDto> cachedMapping() {
+        return cachedMap();
+    }
+
+    @Benchmark
+    public byte[] cachedMappingAndSerialization() throws Exception {
+        return objectMapper.writeValueAsBytes(cachedMap());
+    }
+
+    @Benchmark
+    public void age(Blackhole blackhole) {
+        for (Deployment deployment : deployments) {
+            blackhole.consume(DateUtil.getAge(deployment.getMetadata().getCreationTimestamp()));
+        }
+    }
+
+    @Benchmark
+    public byte[] serialization() throws Exception {
+        return objectMapper.writeValueAsBytes(dtos);
+    }
+
+    @Benchmark
+    public byte[] mappingAndSerialization() throws Exception {
+        return objectMapper.writeValueAsBytes(map());
+    }
+
+    private List<DeploymentDto> map() {
+        List<DeploymentDto> result = new ArrayList<>(deployments.size());
+        for (Deployment deployment : deployments) {
+            result.add(new DeploymentDto(deployment, URL));
+        }
+        return result;
+    }
+
+    private List<DeploymentDto> cachedMap() {
+        long pass = projectionCache.nextGeneration();
+        List<DeploymentDto> result = new ArrayList<>(deployments.size());
+        for (Deployment deployment : deployments) {
+            result.add(projectionCache.get(deployment, CLUSTER, URL, pass));
+        }
+        return result;
+    }
+}
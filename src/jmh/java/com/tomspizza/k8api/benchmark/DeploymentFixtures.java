@@ -0,0 +1,63 @@
+package com.tomspizza.k8api.benchmark;
+
+import io.fabric8.kubernetes.api.model.apps.Deployment;
+import io.fabric8.kubernetes.api.model.apps.DeploymentBuilder;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+public class DeploymentFixtures {
+
+    private static final DateTimeFormatter dtf = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss'Z'");
+
+    private DeploymentFixtures() {
+    }
+
+    public static List<Deployment> deployments(int size) {
+        Random random = new Random(size);
+        LocalDateTime now = LocalDateTime.now();
+        List<Deployment> deployments = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            String name = "service-" + i;
+            String namespace = "tenant-" + (i % 50);
+            deployments.add(new DeploymentBuilder()
+                    .withNewMetadata()
+                    .withName(name)
+                    .withNamespace(namespace)
+                    .withUid("uid-" + i)
+                    .withResourceVersion(String.valueOf(100000 + i))
+                    .withCreationTimestamp(now.minusMinutes(random.nextInt(60 * 24 * 90)).format(dtf))
+                    .addToLabels("app", name)
+                    .endMetadata()
+                    .withNewSpec()
+                    .withReplicas(1 + random.nextInt(10))
+                    .withNewSelector()
+                    .addToMatchLabels("app", name)
+                    .endSelector()
+                    .withNewTemplate()
+                    .withNewMetadata()
+                    .addToLabels("app", name)
+                    .endMetadata()
+                    .withNewSpec()
+                    .addNewContainer()
+                    .withName(name)
+                    .withImage("test.azurecr.io/integration/" + name + ":1." + random.nextInt(100))
+                    .addNewPort()
+                    .withContainerPort(8081)
+                    .withProtocol("TCP")
+                    .endPort()
+                    .endContainer()
+                    .endSpec()
+                    .endTemplate()
+                    .endSpec()
+                    .withNewStatus()
+                    .withReplicas(1 + random.nextInt(10))
+                    .endStatus()
+                    .build());
+        }
+        return deployments;
+    }
+}
@@ -0,0 +1,32 @@
+package com.tomspizza.k8api.loadtest;
+
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.RecordedRequest;
+
+/**
+ * Delays every API server response before handing the request to the CRUD dispatcher, to stand in for
+ * the network and etcd latency of a real cluster.
+ */
+public class LatencyDispatcher extends Dispatcher {
+
+    private final Dispatcher delegate;
+
+    private volatile long latency;
+
+    public LatencyDispatcher(Dispatcher delegate) {
+        this.delegate = delegate;
+    }
+
+    public void setLatency(long latency) {
+        this.latency = latency;
+    }
+
+    @Override
+    public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+        if (latency > 0) {
+            Thread.sleep(latency);
+        }
+        return delegate.dispatch(request);
+    }
+}
@@ -0,0 +1,72 @@
+package com.tomspizza.k8api.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import lombok.Getter;
+import org.HdrHistogram.Histogram;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+@Getter
+public class LoadReport {
+
+    private final Map<String, String> options;
+
+    private final List<Result> results = new ArrayList<>();
+
+    public LoadReport(Map<String, String> options) {
+        this.options = options;
+    }
+
+    public void add(String scenario, Histogram histogram, long errors, long elapsedNanos) {
+        results.add(new Result(scenario, histogram, errors, elapsedNanos));
+    }
+
+    public void print() {
+        System.out.println();
+        System.out.println(String.format("%-10s %9s %7s %12s %9s %9s %9s %9s",
+                "scenario", "requests", "errors", "throughput/s", "p50 ms", "p99 ms", "p99.9 ms", "max ms"));
+        for (Result r : results) {
+            System.out.println(String.format("%-10s %9d %7d %12.1f %9.2f %9.2f %9.2f %9.2f",
+                    r.scenario, r.requests, r.errors, r.throughput, r.p50, r.p99, r.p999, r.max));
+        }
+        System.out.println();
+    }
+
+    public void write(File file) throws IOException {
+        file.getParentFile().mkdirs();
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(file, this);
+        System.out.println("Results written to " + file);
+    }
+
+    @Getter
+    public static class Result {
+        private final String scenario;
+        private final long requests;
+        private final long errors;
+        private final double throughput;
+        private final double p50;
+        private final double p99;
+        private final double p999;
+        private final double max;
+
+        private Result(String scenario, Histogram histogram, long errors, long elapsedNanos) {
+            this.scenario = scenario;
+            this.requests = histogram.getTotalCount();
+            this.errors = errors;
+            this.throughput = requests * 1e9 / Math.max(1L, elapsedNanos);
+            this.p50 = millis(histogram.getValueAtPercentile(50.0));
+            this.p99 = millis(histogram.getValueAtPercentile(99.0));
+            this.p999 = millis(histogram.getValueAtPercentile(99.9));
+            this.max = millis(histogram.getMaxValue());
+        }
+
+        private static double millis(long micros) {
+            return micros / 1000.0;
+        }
+    }
+}
@@ -0,0 +1,274 @@
+package com.tomspizza.k8api.loadtest;
+
+import com.tomspizza.k8api.ServerApplication;
+import io.fabric8.kubernetes.api.model.NamespaceBuilder;
+import io.fabric8.kubernetes.api.model.apps.Deployment;
+import io.fabric8.kubernetes.api.model.apps.DeploymentBuilder;
+import io.fabric8.kubernetes.client.Config;
+import io.fabric8.kubernetes.client.NamespacedKubernetesClient;
+import io.fabric8.kubernetes.client.server.mock.KubernetesAttributesExtractor;
+import io.fabric8.kubernetes.client.server.mock.KubernetesCrudDispatcher;
+import io.fabric8.kubernetes.client.server.mock.KubernetesMockServer;
+import io.fabric8.kubernetes.client.utils.Serialization;
+import io.fabric8.mockwebserver.Context;
+import io.fabric8.mockwebserver.crud.AttributeSet;
+import okhttp3.ConnectionPool;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.mockwebserver.MockWebServer;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Boots the application against a CRUD mock API server and drives deploy, scale, list and delete at a
+ * fixed concurrency. Options are passed as {@code --name=value}; anything else (e.g. {@code --app.scale.window=0})
+ * is handed to the application.
+ */
+public class LoadTest {
+
+    private static final MediaType JSON = MediaType.get("application/json");
+
+    private static final String NAMESPACE = "load";
+
+    private static final String SEED_NAMESPACE = "seed";
+
+    private final Map<String, String> options = new LinkedHashMap<>();
+
+    private final List<String> applicationArgs = new ArrayList<>();
+
+    private OkHttpClient http;
+
+    private String baseUrl;
+
+    public static void main(String[] args) throws Exception {
+        LoadTest loadTest = new LoadTest(args);
+        loadTest.run();
+        System.exit(0);
+    }
+
+    private LoadTest(String[] args) {
+        options.put("seed", "1000");
+        options.put("latency", "5");
+        options.put("concurrency", "16");
+        options.put("requests", "500");
+        options.put("listRequests", "50");
+        options.put("warmup", "50");
+        options.put("scenarios", "deploy,scale,list,delete");
+        options.put("output", "target/loadtest-result.json");
+        applicationArgs.add("--server.port=0");
+        applicationArgs.add("--app.patch.serverSideApply=false");
+        applicationArgs.add("--app.rateLimit.enabled=false");
+        applicationArgs.add("--app.journal.enabled=false");
+        applicationArgs.add("--logging.level.okhttp3.mockwebserver=WARN");
+        for (String arg : args) {
+            String[] option = arg.replaceFirst("^--", "").split("=", 2);
+            if (option.length == 2 && options.containsKey(option[0])) {
+                options.put(option[0], option[1]);
+            } else {
+                // an argument given twice would be bound as "false,true"
+                applicationArgs.removeIf(a -> a.startsWith("--" + option[0] + "="));
+                applicationArgs.add(arg);
+            }
+        }
+    }
+
+    private void run() throws Exception {
+        KubernetesCrudDispatcher crud = new KubernetesCrudDispatcher(Collections.emptyList());
+        LatencyDispatcher dispatcher = new LatencyDispatcher(crud);
+        KubernetesMockServer server = new KubernetesMockServer(new Context(), new MockWebServer(), new HashMap<>(),
+                dispatcher, false);
+        server.init();
+        ConfigurableApplicationContext context = null;
+        try (NamespacedKubernetesClient client = server.createClient()) {
+            seed(client, crud, option("seed"));
+            dispatcher.setLatency(option("latency"));
+
+            System.setProperty(Config.KUBERNETES_MASTER_SYSTEM_PROPERTY, client.getMasterUrl().toString());
+            System.setProperty(Config.KUBERNETES_AUTH_TRYKUBECONFIG_SYSTEM_PROPERTY, "false");
+            System.setProperty(Config.KUBERNETES_AUTH_TRYSERVICEACCOUNT_SYSTEM_PROPERTY, "false");
+            System.setProperty(Config.KUBERNETES_NAMESPACE_SYSTEM_PROPERTY, "default");
+            context = SpringApplication.run(ServerApplication.class, applicationArgs.toArray(new String[0]));
+            baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port") + "/k8s";
+
+            int concurrency = option("concurrency");
+            http = new OkHttpClient.Builder()
+                    .connectionPool(new ConnectionPool(concurrency, 5, TimeUnit.MINUTES))
+                    .readTimeout(2, TimeUnit.MINUTES)
+                    .build();
+            LoadReport report = new LoadReport(options);
+            int requests = option("requests");
+            for (String scenario : options.get("scenarios").split(",")) {
+                switch (scenario.trim()) {
+                    case "deploy":
+                        drive(report, "deploy", requests, i -> post("/deploy", "{\"namespace\":\"" + NAMESPACE
+                                + "\",\"serviceName\":\"" + name(i) + "\",\"image\":\"nginx:1.19\"}"));
+                        break;
+                    case "scale":
+                        int deployed = option("warmup") + requests;
+                        drive(report, "scale", requests, i -> post("/scale", "{\"namespace\":\"" + NAMESPACE
+                                + "\",\"serviceName\":\"" + name(i % deployed) + "\",\"numberOfReplicas\":" + (1 + i % 10) + "}"));
+                        break;
+                    case "list":
+                        drive(report, "list", option("listRequests"), i -> get("/list"));
+                        break;
+                    case "delete":
+                        drive(report, "delete", requests, i -> post("/delete", "{\"namespace\":\"" + NAMESPACE
+                                + "\",\"serviceName\":\"" + name(i) + "\"}"));
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unknown scenario " + scenario);
+                }
+            }
+            report.print();
+            report.write(new File(options.get("output")));
+        } finally {
+            if (context != null) {
+                context.close();
+            }
+            server.destroy();
+        }
+    }
+
+    /**
+     * Puts the seed deployments straight into the mock's store: creating them over HTTP costs a scan of the
+     * whole store per object, which makes large seeds take minutes.
+     */
+    private void seed(NamespacedKubernetesClient client, KubernetesCrudDispatcher crud, int size) {
+        if (size <= 0) {
+            return;
+        }
+        System.out.println("Seeding " + size + " deployments");
+        long start = System.nanoTime();
+        client.namespaces().create(new NamespaceBuilder().withNewMetadata().withName(SEED_NAMESPACE).endMetadata().build());
+        KubernetesAttributesExtractor extractor = (KubernetesAttributesExtractor) crud.getAttributeExtractor();
+        String created = Instant.now().toString();
+        for (int i = 0; i < size; i++) {
+            String name = "seed-" + i;
+            Deployment deployment = seedDeployment(name);
+            deployment.getMetadata().setNamespace(SEED_NAMESPACE);
+            deployment.getMetadata().setUid(UUID.randomUUID().toString());
+            deployment.getMetadata().setResourceVersion(String.valueOf(i + 1));
+            deployment.getMetadata().setCreationTimestamp(created);
+            String json = Serialization.asJson(deployment);
+            AttributeSet attributes = AttributeSet.merge(
+                    extractor.fromPath("/apis/apps/v1/namespaces/" + SEED_NAMESPACE + "/deployments/" + name),
+                    extractor.fromResource(json));
+            crud.getMap().put(attributes, json);
+        }
+        System.out.println("Seeded in " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms");
+    }
+
+    private static Deployment seedDeployment(String name) {
+        return new DeploymentBuilder()
+                .withNewMetadata().withName(name).addToLabels("app", name).endMetadata()
+                .withNewSpec()
+                .withReplicas(1)
+                .withNewSelector().addToMatchLabels("app", name).endSelector()
+                .withNewTemplate()
+                .withNewMetadata().addToLabels("app", name).endMetadata()
+                .withNewSpec().addNewContainer().withName(name).withImage("nginx:1.19").endContainer().endSpec()
+                .endTemplate()
+                .endSpec()
+                .build();
+    }
+
+    /**
+     * Runs the warmup calls unrecorded, then {@code requests} recorded calls, from {@code concurrency} threads.
+     */
+    private void drive(LoadReport report, String scenario, int requests, Call call) throws InterruptedException {
+        int warmup = option("warmup");
+        int concurrency = option("concurrency");
+        Histogram histogram = new ConcurrentHistogram(3);
+        LongAdder errors = new LongAdder();
+        AtomicInteger next = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(concurrency);
+
+        System.out.println("Running " + scenario + ": " + warmup + " warmup and " + requests + " measured calls");
+        runPhase(executor, concurrency, next, warmup, call, null, errors);
+        errors.reset();
+        long start = System.nanoTime();
+        runPhase(executor, concurrency, next, warmup + requests, call, histogram, errors);
+        long elapsed = System.nanoTime() - start;
+        executor.shutdown();
+        report.add(scenario, histogram, errors.sum(), elapsed);
+    }
+
+    private void runPhase(ExecutorService executor, int concurrency, AtomicInteger next, int end, Call call,
+                          Histogram histogram, LongAdder errors) throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(concurrency);
+        for (int t = 0; t < concurrency; t++) {
+            executor.execute(() -> {
+                int i;
+                while ((i = next.getAndIncrement()) < end) {
+                    long start = System.nanoTime();
+                    boolean success;
+                    try {
+                        success = call.execute(i);
+                    } catch (IOException e) {
+                        success = false;
+                    }
+                    if (histogram != null) {
+                        histogram.recordValue(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start));
+                    }
+                    if (!success) {
+                        errors.increment();
+                    }
+                }
+                done.countDown();
+            });
+        }
+        done.await();
+        next.set(end);
+    }
+
+    private boolean post(String path, String body) throws IOException {
+        return execute(new Request.Builder().url(baseUrl + path).post(RequestBody.create(JSON, body)).build());
+    }
+
+    private boolean get(String path) throws IOException {
+        return execute(new Request.Builder().url(baseUrl + path).get().build());
+    }
+
+    private boolean execute(Request request) throws IOException {
+        try (Response response = http.newCall(request).execute()) {
+            if (response.body() != null) {
+                response.body().bytes();
+            }
+            return response.isSuccessful();
+        }
+    }
+
+    private int option(String name) {
+        return Integer.parseInt(options.get(name));
+    }
+
+    private static String name(int i) {
+        return "load-" + i;
+    }
+
+    private interface Call {
+        boolean execute(int i) throws IOException;
+    }
+}
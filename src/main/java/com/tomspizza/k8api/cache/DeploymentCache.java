@@ -0,0 +1,177 @@
+package com.tomspizza.k8api.cache;
+
+import io.fabric8.kubernetes.api.model.apps.Deployment;
+import io.fabric8.kubernetes.client.DefaultKubernetesClient;
+import io.fabric8.kubernetes.client.informers.ResourceEventHandler;
+import io.fabric8.kubernetes.client.informers.SharedIndexInformer;
+import io.fabric8.kubernetes.client.informers.cache.Cache;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Function;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class DeploymentCache {
+
+    public static final String APP_INDEX = "app";
+
+    private static final String APP_LABEL = "app";
+
+    @Value("${app.cache.deployments.enabled}")
+    private boolean enabled;
+
+    @Value("${app.cache.deployments.resyncPeriod}")
+    private long resyncPeriod;
+
+    @Value("${app.cache.deployments.maxStaleness}")
+    private long maxStaleness;
+
+    private final DefaultKubernetesClient client;
+
+    private final InformerStarter informerStarter;
+
+    private final DeploymentProjectionCache projectionCache;
+
+    private volatile SharedIndexInformer<Deployment> informer;
+
+    private volatile long lastSyncTime;
+
+    private final List<ResourceEventHandler<Deployment>> handlers = new CopyOnWriteArrayList<>();
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            log.info("Deployment cache is disabled, listing deployments directly");
+            return;
+        }
+
+        // the namespace index is built in
+        Map<String, Function<Deployment, List<String>>> indexers = new HashMap<>();
+        indexers.put(APP_INDEX, DeploymentCache::appIndexFunc);
+
+        log.info("Starting deployment informer");
+        informerStarter.start("deployment", () -> client.apps().deployments().inAnyNamespace()
+                .withIndexers(indexers)
+                .inform(new ResourceEventHandler<Deployment>() {
+                    @Override
+                    public void onAdd(Deployment deployment) {
+                        synced();
+                    }
+
+                    @Override
+                    public void onUpdate(Deployment oldDeployment, Deployment newDeployment) {
+                        synced();
+                    }
+
+                    @Override
+                    public void onDelete(Deployment deployment, boolean deletedFinalStateUnknown) {
+                        projectionCache.evict(deployment);
+                        synced();
+                    }
+                }, resyncPeriod), started -> {
+            synchronized (this) {
+                informer = started;
+                handlers.forEach(started::addEventHandler);
+            }
+            lastSyncTime = System.currentTimeMillis();
+        });
+    }
+
+    /**
+     * Lets another component follow deployments of the default cluster without a LIST and WATCH of its own.
+     * A handler added to a running informer first receives the cached deployments as additions.
+     */
+    public synchronized void addEventHandler(ResourceEventHandler<Deployment> handler) {
+        handlers.add(handler);
+        if (informer != null) {
+            informer.addEventHandler(handler);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (informer != null) {
+            log.info("Stopping deployment informer");
+            informer.stop();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public boolean isReady() {
+        return informer != null && informer.hasSynced();
+    }
+
+    public List<Deployment> list() {
+        return informer.getIndexer().list();
+    }
+
+    public List<Deployment> listByNamespace(String namespace) {
+        return informer.getIndexer().byIndex(Cache.NAMESPACE_INDEX, namespace);
+    }
+
+    public List<Deployment> listByApp(String app) {
+        return informer.getIndexer().byIndex(APP_INDEX, app);
+    }
+
+    public int size() {
+        return isReady() ? informer.getIndexer().listKeys().size() : 0;
+    }
+
+    public boolean isWatching() {
+        return informer != null && informer.isWatching();
+    }
+
+    /**
+     * Ready and synced within app.cache.deployments.maxStaleness.
+     */
+    public boolean isFresh() {
+        return isReady() && getStalenessMillis() <= maxStaleness;
+    }
+
+    public String getResourceVersion() {
+        return informer == null ? null : informer.lastSyncResourceVersion();
+    }
+
+    /**
+     * Time since the store was last known to match the API server, or -1 before the first sync.
+     */
+    public long getStalenessMillis() {
+        if (!isReady() || lastSyncTime == 0L) {
+            return -1L;
+        }
+        return System.currentTimeMillis() - lastSyncTime;
+    }
+
+    /**
+     * Called for the initial list, watch events and resyncs. A resync while the watch is down only replays
+     * the local store, so it does not count.
+     */
+    private void synced() {
+        SharedIndexInformer<Deployment> current = informer;
+        if (current == null || current.isWatching()) {
+            lastSyncTime = System.currentTimeMillis();
+        }
+    }
+
+    private static List<String> appIndexFunc(Deployment deployment) {
+        Map<String, String> labels = deployment.getMetadata().getLabels();
+        if (labels == null || !labels.containsKey(APP_LABEL)) {
+            return Collections.emptyList();
+        }
+        return Collections.singletonList(labels.get(APP_LABEL));
+    }
+}
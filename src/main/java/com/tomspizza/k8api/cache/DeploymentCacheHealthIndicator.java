@@ -0,0 +1,36 @@
+package com.tomspizza.k8api.cache;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.health.AbstractHealthIndicator;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.stereotype.Component;
+
+/**
+ * Out of service until the deployment informer has synced and while it has not synced within
+ * app.cache.deployments.maxStaleness. Included in the readiness health group.
+ */
+@Component
+@RequiredArgsConstructor
+public class DeploymentCacheHealthIndicator extends AbstractHealthIndicator {
+
+    private final DeploymentCache deploymentCache;
+
+    @Override
+    protected void doHealthCheck(Health.Builder builder) {
+        builder.withDetail("enabled", deploymentCache.isEnabled());
+        if (!deploymentCache.isEnabled()) {
+            builder.up();
+            return;
+        }
+        builder.withDetail("ready", deploymentCache.isReady())
+                .withDetail("watching", deploymentCache.isWatching())
+                .withDetail("size", deploymentCache.size())
+                .withDetail("resourceVersion", String.valueOf(deploymentCache.getResourceVersion()))
+                .withDetail("stalenessMillis", deploymentCache.getStalenessMillis());
+        if (deploymentCache.isFresh()) {
+            builder.up();
+        } else {
+            builder.outOfService();
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.tomspizza.k8api.cache;
+
+import com.tomspizza.k8api.dto.DeploymentDto;
+import io.fabric8.kubernetes.api.model.ObjectMeta;
+import io.fabric8.kubernetes.api.model.apps.Deployment;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps the {@link DeploymentDto} built for each deployment UID and reuses it while the
+ * cluster, resourceVersion and service URL are unchanged. Only the uptime is computed per request.
+ */
+@Slf4j
+@Component
+public class DeploymentProjectionCache {
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    private final AtomicLong generation = new AtomicLong();
+
+    private final AtomicLong hits = new AtomicLong();
+
+    private final AtomicLong misses = new AtomicLong();
+
+    private final int maxSize;
+
+    public DeploymentProjectionCache(@Value("${app.cache.projections.maxSize}") int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Starts a new listing pass. Entries used in the current pass are never evicted by it.
+     */
+    public long nextGeneration() {
+        return generation.incrementAndGet();
+    }
+
+    public DeploymentDto get(Deployment deployment, String cluster, String url) {
+        return get(deployment, cluster, url, generation.get());
+    }
+
+    public DeploymentDto get(Deployment deployment, String cluster, String url, long pass) {
+        ObjectMeta metadata = deployment.getMetadata();
+        String uid = metadata.getUid();
+        if (uid == null || maxSize <= 0) {
+            return create(deployment, cluster, url);
+        }
+
+        Entry entry = entries.get(uid);
+        if (entry != null && entry.matches(cluster, metadata.getResourceVersion(), url)) {
+            entry.generation = pass;
+            hits.incrementAndGet();
+            return entry.dto;
+        }
+
+        misses.incrementAndGet();
+        DeploymentDto dto = create(deployment, cluster, url);
+        if (entries.size() >= maxSize && !entries.containsKey(uid) && !evict(pass)) {
+            return dto;
+        }
+        entries.put(uid, new Entry(cluster, metadata.getResourceVersion(), url, dto, pass));
+        return dto;
+    }
+
+    public void evict(Deployment deployment) {
+        String uid = deployment.getMetadata().getUid();
+        if (uid != null) {
+            entries.remove(uid);
+        }
+    }
+
+    /**
+     * Drops entries of deployments that were not part of a complete listing.
+     */
+    public void retain(Collection<Deployment> deployments) {
+        Set<String> uids = new HashSet<>(deployments.size() * 2);
+        deployments.forEach(d -> uids.add(d.getMetadata().getUid()));
+        entries.keySet().retainAll(uids);
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    private static DeploymentDto create(Deployment deployment, String cluster, String url) {
+        DeploymentDto dto = new DeploymentDto(deployment, url);
+        dto.setCluster(cluster);
+        return dto;
+    }
+
+    private synchronized boolean evict(long pass) {
+        if (entries.size() < maxSize) {
+            return true;
+        }
+        entries.values().removeIf(entry -> entry.generation < pass);
+        log.debug("Evicted deployment projections, {} left", entries.size());
+        return entries.size() < maxSize;
+    }
+
+    private static class Entry {
+        private final String cluster;
+        private final String resourceVersion;
+        private final String url;
+        private final DeploymentDto dto;
+        private volatile long generation;
+
+        private Entry(String cluster, String resourceVersion, String url, DeploymentDto dto, long generation) {
+            this.cluster = cluster;
+            this.resourceVersion = resourceVersion;
+            this.url = url;
+            this.dto = dto;
+            this.generation = generation;
+        }
+
+        private boolean matches(String cluster, String resourceVersion, String url) {
+            return Objects.equals(this.cluster, cluster)
+                    && Objects.equals(this.resourceVersion, resourceVersion)
+                    && Objects.equals(this.url, url);
+        }
+    }
+}
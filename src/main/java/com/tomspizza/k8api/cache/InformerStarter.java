@@ -0,0 +1,49 @@
+package com.tomspizza.k8api.cache;
+
+import io.fabric8.kubernetes.client.informers.SharedIndexInformer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import javax.annotation.PreDestroy;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+@Slf4j
+@Component
+public class InformerStarter {
+
+    @Value("${app.cache.retryInterval}")
+    private long retryInterval;
+
+    private final ScheduledExecutorService executor;
+
+    public InformerStarter() {
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("informer-starter-");
+        threadFactory.setDaemon(true);
+        executor = Executors.newScheduledThreadPool(2, threadFactory);
+    }
+
+    public <T> void start(String name, Supplier<SharedIndexInformer<T>> factory, Consumer<SharedIndexInformer<T>> started) {
+        executor.execute(() -> attempt(name, factory, started));
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    private <T> void attempt(String name, Supplier<SharedIndexInformer<T>> factory, Consumer<SharedIndexInformer<T>> started) {
+        try {
+            started.accept(factory.get());
+            log.info("Started {} informer", name);
+        } catch (RuntimeException e) {
+            log.warn("Failed to start {} informer, retrying in {} ms: {}", name, retryInterval, e.getMessage());
+            executor.schedule(() -> attempt(name, factory, started), retryInterval, TimeUnit.MILLISECONDS);
+        }
+    }
+}
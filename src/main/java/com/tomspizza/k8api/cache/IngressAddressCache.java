@@ -0,0 +1,143 @@
+package com.tomspizza.k8api.cache;
+
+import com.tomspizza.k8api.cluster.ClusterRegistry;
+import io.fabric8.kubernetes.api.model.LoadBalancerIngress;
+import io.fabric8.kubernetes.api.model.LoadBalancerStatus;
+import io.fabric8.kubernetes.api.model.Service;
+import io.fabric8.kubernetes.api.model.ServiceList;
+import io.fabric8.kubernetes.api.model.ServiceStatus;
+import io.fabric8.kubernetes.client.DefaultKubernetesClient;
+import io.fabric8.kubernetes.client.dsl.FilterWatchListDeletable;
+import io.fabric8.kubernetes.client.informers.ResourceEventHandler;
+import io.fabric8.kubernetes.client.informers.SharedIndexInformer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class IngressAddressCache {
+
+    private static final String NAME_FIELD = "metadata.name";
+
+    @Value("${app.ingressController.name}")
+    private String controllerName;
+
+    @Value("${app.ingressController.namespace:}")
+    private String controllerNamespace;
+
+    private final ClusterRegistry clusterRegistry;
+
+    private final InformerStarter informerStarter;
+
+    private final Map<String, ClusterAddress> addresses = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void start() {
+        for (String cluster : clusterRegistry.getNames()) {
+            ClusterAddress clusterAddress = new ClusterAddress();
+            addresses.put(cluster, clusterAddress);
+            log.info("Watching ingress controller service [{}] in cluster [{}]", controllerName, cluster);
+            informerStarter.start("ingress controller", () -> controllerServices(cluster).inform(new ResourceEventHandler<Service>() {
+                @Override
+                public void onAdd(Service service) {
+                    clusterAddress.update(cluster, service);
+                }
+
+                @Override
+                public void onUpdate(Service oldService, Service newService) {
+                    clusterAddress.update(cluster, newService);
+                }
+
+                @Override
+                public void onDelete(Service service, boolean deletedFinalStateUnknown) {
+                    log.info("Ingress controller service [{}] in cluster [{}] was deleted", controllerName, cluster);
+                    clusterAddress.update(cluster, null);
+                }
+            }, 0), started -> clusterAddress.informer = started);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        addresses.values().stream()
+                .map(clusterAddress -> clusterAddress.informer)
+                .filter(Objects::nonNull)
+                .forEach(SharedIndexInformer::stop);
+    }
+
+    public String getAddress(String cluster) {
+        String name = clusterRegistry.resolve(cluster);
+        ClusterAddress clusterAddress = addresses.get(name);
+        if (clusterAddress != null && clusterAddress.isReady()) {
+            return clusterAddress.address;
+        }
+
+        log.info("Ingress controller watch of cluster [{}] is not synced yet, looking up the service directly", name);
+        List<Service> services = controllerServices(name).list().getItems();
+        return services.isEmpty() ? null : resolveAddress(services.get(0));
+    }
+
+    public boolean isReady() {
+        ClusterAddress clusterAddress = addresses.get(clusterRegistry.getDefaultName());
+        return clusterAddress != null && clusterAddress.isReady();
+    }
+
+    public String getCachedAddress() {
+        ClusterAddress clusterAddress = addresses.get(clusterRegistry.getDefaultName());
+        return clusterAddress == null ? null : clusterAddress.address;
+    }
+
+    public long getLastUpdateTime() {
+        ClusterAddress clusterAddress = addresses.get(clusterRegistry.getDefaultName());
+        return clusterAddress == null ? 0L : clusterAddress.lastUpdateTime;
+    }
+
+    private FilterWatchListDeletable<Service, ServiceList> controllerServices(String cluster) {
+        DefaultKubernetesClient client = clusterRegistry.getClient(cluster);
+        if (StringUtils.isEmpty(controllerNamespace)) {
+            return client.services().inAnyNamespace().withField(NAME_FIELD, controllerName);
+        }
+        return client.services().inNamespace(controllerNamespace).withField(NAME_FIELD, controllerName);
+    }
+
+    static String resolveAddress(Service service) {
+        ServiceStatus status = service.getStatus();
+        LoadBalancerStatus loadBalancer = status == null ? null : status.getLoadBalancer();
+        if (loadBalancer == null || loadBalancer.getIngress() == null || loadBalancer.getIngress().isEmpty()) {
+            return null;
+        }
+
+        LoadBalancerIngress ingress = loadBalancer.getIngress().get(0);
+        return StringUtils.isEmpty(ingress.getIp()) ? ingress.getHostname() : ingress.getIp();
+    }
+
+    private static class ClusterAddress {
+        private volatile SharedIndexInformer<Service> informer;
+        private volatile String address;
+        private volatile long lastUpdateTime;
+
+        private boolean isReady() {
+            return informer != null && informer.hasSynced();
+        }
+
+        private void update(String cluster, Service service) {
+            String newAddress = service == null ? null : resolveAddress(service);
+            if (!StringUtils.isEmpty(newAddress) && !newAddress.equals(address)) {
+                log.info("Ingress controller address of cluster [{}] changed to {}", cluster, newAddress);
+            }
+            address = newAddress;
+            lastUpdateTime = System.currentTimeMillis();
+        }
+    }
+}
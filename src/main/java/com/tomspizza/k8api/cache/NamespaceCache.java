@@ -0,0 +1,117 @@
+package com.tomspizza.k8api.cache;
+
+import com.tomspizza.k8api.cluster.ClusterRegistry;
+import io.fabric8.kubernetes.api.model.Namespace;
+import io.fabric8.kubernetes.client.informers.SharedIndexInformer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Namespaces of every cluster, kept by a namespace informer so a deploy does not have to list them.
+ * Misses are resolved by the given loader, and concurrent lookups of the same missing namespace share
+ * one load, so only one create is issued.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class NamespaceCache {
+
+    @Value("${app.cache.namespaces.enabled}")
+    private boolean enabled;
+
+    private final ClusterRegistry clusterRegistry;
+
+    private final InformerStarter informerStarter;
+
+    private final Map<String, SharedIndexInformer<Namespace>> informers = new ConcurrentHashMap<>();
+
+    private final Map<String, CompletableFuture<Namespace>> loading = new ConcurrentHashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+
+    private final AtomicLong misses = new AtomicLong();
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            log.info("Namespace cache is disabled, looking up namespaces directly");
+            return;
+        }
+        for (String cluster : clusterRegistry.getNames()) {
+            informerStarter.start("namespace", () -> clusterRegistry.getClient(cluster).namespaces().inform(),
+                    started -> informers.put(cluster, started));
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        informers.values().forEach(SharedIndexInformer::stop);
+    }
+
+    public Namespace get(String cluster, String name, Supplier<Namespace> loader) {
+        String clusterName = clusterRegistry.resolve(cluster);
+        SharedIndexInformer<Namespace> informer = informers.get(clusterName);
+        if (informer != null && informer.hasSynced()) {
+            Namespace namespace = informer.getIndexer().getByKey(name);
+            if (namespace != null) {
+                hits.incrementAndGet();
+                return namespace;
+            }
+        }
+        misses.incrementAndGet();
+
+        String key = clusterName + "/" + name;
+        CompletableFuture<Namespace> load = new CompletableFuture<>();
+        CompletableFuture<Namespace> pending = loading.putIfAbsent(key, load);
+        if (pending != null) {
+            return join(pending);
+        }
+        try {
+            Namespace namespace = loader.get();
+            load.complete(namespace);
+            return namespace;
+        } catch (RuntimeException e) {
+            load.completeExceptionally(e);
+            throw e;
+        } finally {
+            loading.remove(key, load);
+        }
+    }
+
+    public int size() {
+        return informers.values().stream()
+                .filter(SharedIndexInformer::hasSynced)
+                .mapToInt(informer -> informer.getIndexer().listKeys().size())
+                .sum();
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    private static Namespace join(CompletableFuture<Namespace> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.tomspizza.k8api.cluster;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "app.clusters")
+public class ClusterProperties {
+
+    /**
+     * Name of the cluster from the ambient kubeconfig, used when a request names no cluster.
+     */
+    private String name = "default";
+
+    private Settings defaults = new Settings();
+
+    /**
+     * Additional clusters by name, each configured from a kubeconfig context.
+     */
+    private Map<String, Settings> contexts = new LinkedHashMap<>();
+
+    @Getter
+    @Setter
+    public static class Settings {
+        private String context;
+        private Integer connectTimeout;
+        private Integer requestTimeout;
+        private Integer maxIdleConnections;
+        private Long keepAlive;
+        private Integer maxRequests;
+        private Long listTimeout;
+
+        public Settings withDefaults(Settings defaults) {
+            Settings settings = new Settings();
+            settings.context = context;
+            settings.connectTimeout = connectTimeout != null ? connectTimeout : defaults.connectTimeout;
+            settings.requestTimeout = requestTimeout != null ? requestTimeout : defaults.requestTimeout;
+            settings.maxIdleConnections = maxIdleConnections != null ? maxIdleConnections : defaults.maxIdleConnections;
+            settings.keepAlive = keepAlive != null ? keepAlive : defaults.keepAlive;
+            settings.maxRequests = maxRequests != null ? maxRequests : defaults.maxRequests;
+            settings.listTimeout = listTimeout != null ? listTimeout : defaults.listTimeout;
+            return settings;
+        }
+    }
+}
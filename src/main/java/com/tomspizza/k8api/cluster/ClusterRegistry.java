@@ -0,0 +1,122 @@
+package com.tomspizza.k8api.cluster;
+
+import com.tomspizza.k8api.exception.ServiceException;
+import io.fabric8.kubernetes.client.DefaultKubernetesClient;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+
+/**
+ * Named Kubernetes clients, one per cluster. The default cluster is the one from the ambient kubeconfig.
+ */
+@Slf4j
+public class ClusterRegistry {
+
+    private final String defaultName;
+
+    private final Map<String, Cluster> clusters;
+
+    public ClusterRegistry(String defaultName, Collection<Cluster> clusters) {
+        this.defaultName = defaultName;
+        Map<String, Cluster> byName = new LinkedHashMap<>();
+        clusters.forEach(cluster -> byName.put(cluster.getName(), cluster));
+        this.clusters = Collections.unmodifiableMap(byName);
+    }
+
+    public String getDefaultName() {
+        return defaultName;
+    }
+
+    public Collection<String> getNames() {
+        return clusters.keySet();
+    }
+
+    public boolean isDefault(String cluster) {
+        return cluster == null || defaultName.equals(cluster);
+    }
+
+    public String resolve(String cluster) {
+        return get(cluster).getName();
+    }
+
+    public DefaultKubernetesClient getClient(String cluster) {
+        return get(cluster).getClient();
+    }
+
+    /**
+     * Runs {@code call} for every cluster in parallel. Clusters failing or not answering within their
+     * list timeout are reported in the failures, the others in the results. So is a cluster whose call the
+     * executor rejects.
+     */
+    public <T> ClusterResults<T> fanOut(Function<String, T> call, ExecutorService executor) {
+        long start = System.nanoTime();
+        Map<String, Future<T>> futures = new LinkedHashMap<>();
+        ClusterResults<T> results = new ClusterResults<>();
+        clusters.keySet().forEach(name -> {
+            try {
+                futures.put(name, executor.submit(() -> call.apply(name)));
+            } catch (RejectedExecutionException e) {
+                log.warn("Cluster [{}] was not called, the executor is full", name);
+                results.getFailures().put(name, e);
+            }
+        });
+
+        futures.forEach((name, future) -> {
+            long timeout = clusters.get(name).getListTimeout();
+            long remaining = TimeUnit.MILLISECONDS.toNanos(timeout) - (System.nanoTime() - start);
+            try {
+                results.getResults().put(name, future.get(Math.max(remaining, 0L), TimeUnit.NANOSECONDS));
+            } catch (TimeoutException e) {
+                future.cancel(true);
+                log.warn("Cluster [{}] did not answer within {} ms", name, timeout);
+                results.getFailures().put(name, e);
+            } catch (ExecutionException e) {
+                log.warn("Cluster [{}] failed: {}", name, e.getCause().getMessage());
+                results.getFailures().put(name, e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                future.cancel(true);
+                results.getFailures().put(name, e);
+            }
+        });
+        return results;
+    }
+
+    public void close() {
+        clusters.values().stream()
+                .filter(cluster -> !isDefault(cluster.getName()))
+                .forEach(cluster -> cluster.getClient().close());
+    }
+
+    private Cluster get(String cluster) {
+        Cluster result = clusters.get(cluster == null ? defaultName : cluster);
+        if (result == null) {
+            throw new ServiceException(String.format("Unknown cluster [%s]", cluster));
+        }
+        return result;
+    }
+
+    @Getter
+    public static class Cluster {
+        private final String name;
+        private final DefaultKubernetesClient client;
+        private final long listTimeout;
+
+        public Cluster(String name, DefaultKubernetesClient client, long listTimeout) {
+            this.name = name;
+            this.client = client;
+            this.listTimeout = listTimeout;
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.tomspizza.k8api.cluster;
+
+import lombok.Getter;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Getter
+public class ClusterResults<T> {
+    private final Map<String, T> results = new LinkedHashMap<>();
+    private final Map<String, Throwable> failures = new LinkedHashMap<>();
+
+    public boolean isPartial() {
+        return !failures.isEmpty();
+    }
+}
@@ -0,0 +1,63 @@
+package com.tomspizza.k8api.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+@Configuration
+@EnableScheduling
+public class ExecutorConfig {
+
+    @Value("${app.executor.poolSize}")
+    private int poolSize;
+
+    @Value("${app.executor.queueSize}")
+    private int queueSize;
+
+    @Value("${app.fanOut.poolSize}")
+    private int fanOutPoolSize;
+
+    @Value("${app.fanOut.queueSize}")
+    private int fanOutQueueSize;
+
+    @Value("${app.operations.poolSize}")
+    private int operationPoolSize;
+
+    @Value("${app.operations.queueSize}")
+    private int operationQueueSize;
+
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService kubernetesExecutor() {
+        return new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueSize),
+                new CustomizableThreadFactory("k8s-"),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    /**
+     * Runs the per-cluster calls of a multi-cluster request. A full pool rejects instead of running the call
+     * on the request thread, where it would hold up the other clusters past their list timeout.
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService clusterExecutor() {
+        return new ThreadPoolExecutor(fanOutPoolSize, fanOutPoolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(fanOutQueueSize),
+                new CustomizableThreadFactory("cluster-"),
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService operationExecutor() {
+        return new ThreadPoolExecutor(operationPoolSize, operationPoolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(operationQueueSize),
+                new CustomizableThreadFactory("operation-"),
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+}
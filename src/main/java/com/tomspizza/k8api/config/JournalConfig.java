@@ -0,0 +1,35 @@
+package com.tomspizza.k8api.config;
+
+import com.tomspizza.k8api.journal.OperationJournal;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+
+@Slf4j
+@Configuration
+public class JournalConfig {
+
+    @Value("${app.journal.enabled}")
+    private boolean enabled;
+
+    @Value("${app.journal.directory}")
+    private String directory;
+
+    @Value("${app.journal.segmentSize}")
+    private int segmentSize;
+
+    @Bean(destroyMethod = "close")
+    public OperationJournal operationJournal() throws IOException {
+        if (!enabled) {
+            log.info("Operation journal is disabled, interrupted deploys and deletes are not resumed");
+            return OperationJournal.disabled();
+        }
+        OperationJournal journal = new OperationJournal(Paths.get(directory), segmentSize);
+        journal.open();
+        return journal;
+    }
+}
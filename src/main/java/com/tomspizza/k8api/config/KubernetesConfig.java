@@ -1,15 +1,77 @@
 package com.tomspizza.k8api.config;
 
+import com.tomspizza.k8api.cluster.ClusterProperties;
+import com.tomspizza.k8api.cluster.ClusterRegistry;
+import com.tomspizza.k8api.metrics.PayloadMetricsInterceptor;
+import com.tomspizza.k8api.ratelimit.ApiRateLimiter;
+import com.tomspizza.k8api.ratelimit.RateLimitInterceptor;
+import io.fabric8.kubernetes.client.Config;
+import io.fabric8.kubernetes.client.ConfigBuilder;
 import io.fabric8.kubernetes.client.DefaultKubernetesClient;
+import io.fabric8.kubernetes.client.utils.HttpClientUtils;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
+import okhttp3.ConnectionPool;
+import okhttp3.OkHttpClient;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.util.StringUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 @Slf4j
 @Configuration
+@EnableConfigurationProperties(ClusterProperties.class)
 public class KubernetesConfig {
     @Bean
-    public DefaultKubernetesClient kubernetesClient() {
-        return new DefaultKubernetesClient();
+    public DefaultKubernetesClient kubernetesClient(ClusterProperties properties, MeterRegistry meterRegistry,
+                                                    ApiRateLimiter rateLimiter) {
+        return createClient(properties.getName(), new ConfigBuilder().build(), properties.getDefaults(),
+                meterRegistry, rateLimiter);
+    }
+
+    @Bean(destroyMethod = "close")
+    public ClusterRegistry clusterRegistry(DefaultKubernetesClient kubernetesClient, ClusterProperties properties,
+                                           MeterRegistry meterRegistry, ApiRateLimiter rateLimiter) {
+        List<ClusterRegistry.Cluster> clusters = new ArrayList<>();
+        clusters.add(new ClusterRegistry.Cluster(properties.getName(), kubernetesClient,
+                properties.getDefaults().getListTimeout()));
+        properties.getContexts().forEach((name, contextSettings) -> {
+            ClusterProperties.Settings settings = contextSettings.withDefaults(properties.getDefaults());
+            String context = StringUtils.isEmpty(settings.getContext()) ? name : settings.getContext();
+            log.info("Adding cluster [{}] from kubeconfig context [{}]", name, context);
+            DefaultKubernetesClient client = createClient(name, Config.autoConfigure(context), settings,
+                    meterRegistry, rateLimiter);
+            clusters.add(new ClusterRegistry.Cluster(name, client, settings.getListTimeout()));
+        });
+        return new ClusterRegistry(properties.getName(), clusters);
+    }
+
+    private static DefaultKubernetesClient createClient(String cluster, Config config, ClusterProperties.Settings settings,
+                                                        MeterRegistry meterRegistry, ApiRateLimiter rateLimiter) {
+        if (settings.getConnectTimeout() != null) {
+            config.setConnectionTimeout(settings.getConnectTimeout());
+        }
+        if (settings.getRequestTimeout() != null) {
+            config.setRequestTimeout(settings.getRequestTimeout());
+        }
+        if (settings.getMaxRequests() != null) {
+            config.setMaxConcurrentRequests(settings.getMaxRequests());
+            config.setMaxConcurrentRequestsPerHost(settings.getMaxRequests());
+        }
+
+        OkHttpClient.Builder builder = HttpClientUtils.createHttpClient(config).newBuilder();
+        if (settings.getMaxIdleConnections() != null && settings.getKeepAlive() != null) {
+            builder.connectionPool(new ConnectionPool(settings.getMaxIdleConnections(), settings.getKeepAlive(),
+                    TimeUnit.MILLISECONDS));
+        }
+        OkHttpClient httpClient = builder
+                .addInterceptor(new RateLimitInterceptor(rateLimiter, cluster))
+                .addNetworkInterceptor(new PayloadMetricsInterceptor(meterRegistry))
+                .build();
+        return new DefaultKubernetesClient(httpClient, config);
     }
-}
\ No newline at end of file
+}
@@ -1,14 +1,56 @@
 package com.tomspizza.k8api.config;
 
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.tomspizza.k8api.dto.DeploymentFields;
+import com.tomspizza.k8api.metrics.ListEncodingFilter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jackson.Jackson2ObjectMapperBuilderCustomizer;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
 @Configuration
 public class WebConfig implements WebMvcConfigurer {
 
+    @Value("${app.list.compression}")
+    private boolean compression;
+
     @Override
     public void addCorsMappings(CorsRegistry registry) {
         registry.addMapping("/**").allowedMethods("*");
     }
+
+    @Bean
+    public Jackson2ObjectMapperBuilderCustomizer deploymentFieldsCustomizer() {
+        return builder -> builder.filters(DeploymentFields.ALL);
+    }
+
+    /**
+     * Binary encodings for clients sending {@code Accept: application/x-jackson-smile} or {@code application/cbor},
+     * configured like the JSON mapper.
+     */
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2SmileHttpMessageConverter(builder.factory(new SmileFactory()).build());
+    }
+
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(builder.factory(new CBORFactory()).build());
+    }
+
+    @Bean
+    public FilterRegistrationBean<ListEncodingFilter> listEncodingFilter(MeterRegistry meterRegistry) {
+        FilterRegistrationBean<ListEncodingFilter> registration =
+                new FilterRegistrationBean<>(new ListEncodingFilter(meterRegistry, compression));
+        registration.addUrlPatterns("/k8s/list");
+        return registration;
+    }
 }
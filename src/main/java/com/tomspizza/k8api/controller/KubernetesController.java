@@ -1,13 +1,38 @@
 package com.tomspizza.k8api.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.ser.FilterProvider;
+import com.tomspizza.k8api.dto.DeleteBatchDto;
 import com.tomspizza.k8api.dto.DeployDto;
-import com.tomspizza.k8api.dto.DeploymentDto;
+import com.tomspizza.k8api.dto.DeploymentFields;
+import com.tomspizza.k8api.dto.DeploymentPageDto;
 import com.tomspizza.k8api.dto.K8sDto;
+import com.tomspizza.k8api.dto.OperationDto;
+import com.tomspizza.k8api.dto.ResultDto;
 import com.tomspizza.k8api.dto.ScaleDto;
+import com.tomspizza.k8api.dto.StatusDto;
+import com.tomspizza.k8api.service.DeploymentWatchHub;
 import com.tomspizza.k8api.service.KubernetesService;
+import com.tomspizza.k8api.service.OperationRegistry;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.MappingJacksonValue;
 import org.springframework.stereotype.Controller;
+import org.springframework.util.StringUtils;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.util.Arrays;
 import java.util.List;
 
 @Controller
@@ -16,34 +41,185 @@ public class KubernetesController {
 
     private final KubernetesService kubernetesService;
 
-    public KubernetesController(KubernetesService kubernetesService) {
+    private static final String CONTINUE_HEADER = "X-Continue";
+    private static final String FAILED_CLUSTERS_HEADER = "X-Failed-Clusters";
+    private static final String NDJSON = "application/x-ndjson";
+
+    private final OperationRegistry operationRegistry;
+
+    private final DeploymentWatchHub deploymentWatchHub;
+
+    private final ObjectMapper objectMapper;
+
+    public KubernetesController(KubernetesService kubernetesService, OperationRegistry operationRegistry,
+                                DeploymentWatchHub deploymentWatchHub, ObjectMapper objectMapper) {
         this.kubernetesService = kubernetesService;
+        this.operationRegistry = operationRegistry;
+        this.deploymentWatchHub = deploymentWatchHub;
+        this.objectMapper = objectMapper;
     }
 
     @ResponseBody
     @GetMapping("/list")
-    public List<DeploymentDto> list() {
-        return kubernetesService.getAllDeployments();
+    public ResponseEntity<Object> list(@RequestParam(required = false) String cluster,
+                                       @RequestParam(required = false) String namespace,
+                                       @RequestParam(required = false) String labelSelector,
+                                       @RequestParam(required = false) Integer limit,
+                                       @RequestParam(name = "continue", required = false) String continueToken,
+                                       @RequestParam(required = false) String fields,
+                                       @RequestParam(defaultValue = "false") boolean includePods,
+                                       WebRequest webRequest) {
+        FilterProvider projection = DeploymentFields.of(fields);
+        if (limit == null) {
+            DeploymentPageDto deployments = kubernetesService.getDeployments(cluster, namespace, labelSelector,
+                    includePods, Arrays.asList(webRequest.getHeader(HttpHeaders.ACCEPT), fields),
+                    webRequest::checkNotModified);
+            if (deployments == null) {
+                return null;
+            }
+            ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+            if (!deployments.getFailedClusters().isEmpty()) {
+                response.header(FAILED_CLUSTERS_HEADER, String.join(",", deployments.getFailedClusters()));
+            }
+            return response.body(project(deployments.getItems(), projection));
+        }
+
+        DeploymentPageDto page = kubernetesService.getDeploymentPage(cluster, namespace, labelSelector, limit, continueToken,
+                includePods);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (!StringUtils.isEmpty(page.getContinueToken())) {
+            response.header(CONTINUE_HEADER, page.getContinueToken());
+        }
+        return response.body(project(page.getItems(), projection));
+    }
+
+    @GetMapping(value = "/list/stream", produces = NDJSON)
+    public ResponseEntity<StreamingResponseBody> listStream(@RequestParam(required = false) String cluster,
+                                                            @RequestParam(required = false) String namespace,
+                                                            @RequestParam(required = false) String labelSelector,
+                                                            @RequestParam(required = false) String fields) {
+        FilterProvider projection = DeploymentFields.of(fields);
+        ObjectWriter writer = projection == null ? objectMapper.writer() : objectMapper.writer(projection);
+        StreamingResponseBody body = out -> kubernetesService.streamDeployments(cluster, namespace, labelSelector, dto -> {
+            try {
+                out.write(writer.writeValueAsBytes(dto));
+                out.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType(NDJSON)).body(body);
+    }
+
+    @GetMapping("/watch")
+    public SseEmitter watch(@RequestParam(required = false) String namespace,
+                            @RequestParam(required = false) String resourceVersion,
+                            @RequestHeader(name = "Last-Event-ID", required = false) String lastEventId) {
+        return deploymentWatchHub.subscribe(namespace, resourceVersion != null ? resourceVersion : lastEventId);
+    }
+
+    @ResponseBody
+    @GetMapping("/status")
+    public StatusDto status() {
+        return kubernetesService.getStatus();
     }
 
     @ResponseBody
     @PostMapping("/deploy")
-    public String deploy(@RequestBody DeployDto deployDto) {
+    public ResponseEntity<Object> deploy(@RequestBody DeployDto deployDto,
+                                         @RequestParam(defaultValue = "false") boolean async,
+                                         @RequestParam(defaultValue = "false") boolean waitForReady) {
+        if (async) {
+            return accepted(operationRegistry.submit("deploy", deployDto,
+                    operation -> kubernetesService.deploy(deployDto, waitForReady, operation::step)));
+        }
+        if (waitForReady) {
+            return ResponseEntity.ok(kubernetesService.deploy(deployDto, true, step -> {
+            }));
+        }
         kubernetesService.deploy(deployDto);
-        return "Success";
+        return ResponseEntity.ok("Success");
+    }
+
+    @ResponseBody
+    @PostMapping("/deploy/batch")
+    public List<ResultDto> deployBatch(@RequestBody List<DeployDto> deployDtos) {
+        return kubernetesService.deployBatch(deployDtos);
     }
 
     @ResponseBody
     @PostMapping("/scale")
-    public String scale(@RequestBody ScaleDto scaleDto) {
+    public ResponseEntity<Object> scale(@RequestBody ScaleDto scaleDto,
+                                        @RequestParam(defaultValue = "false") boolean async) {
+        if (async) {
+            kubernetesService.validateReplicas(scaleDto.getNumberOfReplicas());
+            return accepted(operationRegistry.submit("scale", scaleDto,
+                    operation -> kubernetesService.scale(scaleDto, operation::step)));
+        }
         kubernetesService.scale(scaleDto);
-        return "Success";
+        return ResponseEntity.ok("Success");
+    }
+
+    @ResponseBody
+    @PostMapping("/scale/batch")
+    public List<ResultDto> scaleBatch(@RequestBody List<ScaleDto> scaleDtos) {
+        return kubernetesService.scaleBatch(scaleDtos);
     }
 
     @ResponseBody
     @PostMapping("/delete")
-    public String delete(@RequestBody K8sDto k8sDto) {
+    public ResponseEntity<Object> delete(@RequestBody K8sDto k8sDto,
+                                         @RequestParam(defaultValue = "false") boolean async) {
+        if (async) {
+            return accepted(operationRegistry.submit("delete", k8sDto,
+                    operation -> kubernetesService.delete(k8sDto, operation::step)));
+        }
         kubernetesService.delete(k8sDto);
-        return "Success";
+        return ResponseEntity.ok("Success");
+    }
+
+    @ResponseBody
+    @PostMapping("/delete/batch")
+    public List<ResultDto> deleteBatch(@RequestBody DeleteBatchDto deleteBatchDto) {
+        return kubernetesService.deleteBatch(deleteBatchDto);
+    }
+
+    @ResponseBody
+    @GetMapping("/operations/{id}")
+    public DeferredResult<ResponseEntity<OperationDto>> operation(@PathVariable String id,
+                                                                  @RequestParam(defaultValue = "0") long wait) {
+        DeferredResult<ResponseEntity<OperationDto>> result = new DeferredResult<>(wait > 0 ? wait : null);
+        OperationDto operation = operationRegistry.get(id).orElse(null);
+        if (operation == null) {
+            result.setResult(ResponseEntity.notFound().build());
+        } else if (wait <= 0 || operation.isDone()) {
+            result.setResult(ResponseEntity.ok(operation));
+        } else {
+            result.onTimeout(() -> result.setResult(ResponseEntity.ok(operation)));
+            operation.getCompletion().thenAccept(o -> result.setResult(ResponseEntity.ok(o)));
+        }
+        return result;
+    }
+
+    @GetMapping("/operations/{id}/events")
+    public SseEmitter operationEvents(@PathVariable String id) {
+        OperationDto operation = operationRegistry.get(id)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+        return operationRegistry.subscribe(operation);
+    }
+
+    private static Object project(Object body, FilterProvider projection) {
+        if (projection == null) {
+            return body;
+        }
+        MappingJacksonValue value = new MappingJacksonValue(body);
+        value.setFilters(projection);
+        return value;
+    }
+
+    private ResponseEntity<Object> accepted(OperationDto operation) {
+        return ResponseEntity.accepted()
+                .location(URI.create("/k8s/operations/" + operation.getId()))
+                .body(operation);
     }
 }
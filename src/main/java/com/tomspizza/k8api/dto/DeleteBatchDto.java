@@ -0,0 +1,12 @@
+package com.tomspizza.k8api.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+public class DeleteBatchDto {
+    private String cluster;
+    private String namespace;
+    private String labelSelector;
+}
@@ -0,0 +1,20 @@
+package com.tomspizza.k8api.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.Map;
+
+@Getter
+@Setter
+public class DeployReportDto extends K8sDto {
+    private boolean ready;
+    private long duration;
+    private Map<String, Long> phases;
+
+    public DeployReportDto(K8sDto k8sDto) {
+        setNamespace(k8sDto.getNamespace());
+        setServiceName(k8sDto.getServiceName());
+        setCluster(k8sDto.getCluster());
+    }
+}
@@ -1,6 +1,9 @@
 package com.tomspizza.k8api.dto;
 
+import com.fasterxml.jackson.annotation.JsonFilter;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
 import com.tomspizza.k8api.util.DateUtil;
 import io.fabric8.kubernetes.api.model.Container;
 import io.fabric8.kubernetes.api.model.ObjectMeta;
@@ -17,14 +20,31 @@ import java.util.Objects;
 @Getter
 @Setter
 @JsonInclude(JsonInclude.Include.NON_NULL)
+@JsonFilter(DeploymentFields.FILTER)
+@JsonPropertyOrder({"cluster", "namespace", "serviceName", "image", "deployed", "uptime", "replicas", "url", "pods"})
 public class DeploymentDto extends K8sDto {
     private String image;
     private String deployed;
-    private String uptime;
+    @JsonIgnore
+    private Long deployedMillis;
     private int replicas;
-    private String url;
+    @JsonIgnore
+    private String serviceUri;
+    private List<PodDto> pods;
 
-    public DeploymentDto(Deployment deployment, String url) {
+    private DeploymentDto(DeploymentDto other) {
+        setCluster(other.getCluster());
+        setNamespace(other.getNamespace());
+        setServiceName(other.getServiceName());
+        this.image = other.image;
+        this.deployed = other.deployed;
+        this.deployedMillis = other.deployedMillis;
+        this.replicas = other.replicas;
+        this.serviceUri = other.serviceUri;
+        this.pods = other.pods;
+    }
+
+    public DeploymentDto(Deployment deployment, String serviceUri) {
         ObjectMeta metadata = deployment.getMetadata();
         setNamespace(metadata.getNamespace());
         setServiceName(metadata.getName());
@@ -35,11 +55,31 @@ public class DeploymentDto extends K8sDto {
         Container container = containers.get(0);
         this.image = container.getImage();
         this.deployed = metadata.getCreationTimestamp();
-        this.url = (url == null ? null : String.join("/", url, metadata.getName()));
+        this.deployedMillis = deployed == null ? null : DateUtil.toEpochMillis(deployed);
+        this.serviceUri = serviceUri;
 
         DeploymentStatus status = deployment.getStatus();
-        this.replicas = Objects.isNull(status.getReplicas()) ? 0 : status.getReplicas();
+        this.replicas = Objects.isNull(status) || Objects.isNull(status.getReplicas()) ? 0 : status.getReplicas();
+    }
+
+    /**
+     * Copy with the given pods. DTOs are shared through the projection cache, so they are never changed in place.
+     */
+    public DeploymentDto withPods(List<PodDto> pods) {
+        DeploymentDto copy = new DeploymentDto(this);
+        copy.pods = pods;
+        return copy;
+    }
+
+    /**
+     * Joined when serialized, so listings that leave the URL out never build it. Not kept in a field: the DTO
+     * is shared across requests through the projection cache.
+     */
+    public String getUrl() {
+        return serviceUri == null ? null : String.join("/", serviceUri, getServiceName());
+    }
 
-        this.uptime = DateUtil.getAge(metadata.getCreationTimestamp());
+    public String getUptime() {
+        return deployedMillis == null ? null : DateUtil.getAge(deployedMillis, System.currentTimeMillis());
     }
 }
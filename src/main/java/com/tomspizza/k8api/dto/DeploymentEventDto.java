@@ -0,0 +1,25 @@
+package com.tomspizza.k8api.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class DeploymentEventDto {
+
+    public enum Type {
+        ADDED, MODIFIED, SCALED, DELETED, RESYNC
+    }
+
+    private Type type;
+    private String resourceVersion;
+    private DeploymentDto deployment;
+    private Integer previousReplicas;
+
+    public DeploymentEventDto(Type type, String resourceVersion) {
+        this.type = type;
+        this.resourceVersion = resourceVersion;
+    }
+}
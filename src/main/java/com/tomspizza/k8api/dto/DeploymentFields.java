@@ -0,0 +1,51 @@
+package com.tomspizza.k8api.dto;
+
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import com.fasterxml.jackson.databind.ser.FilterProvider;
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import com.tomspizza.k8api.exception.ServiceException;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Projection of {@link DeploymentDto} to the fields a client asked for. Fields left out are never read,
+ * so their getters (uptime, URL) do no work.
+ */
+public final class DeploymentFields {
+
+    public static final String FILTER = "deploymentFields";
+
+    public static final Set<String> NAMES = Collections.unmodifiableSet(new LinkedHashSet<>(
+            Arrays.asList(DeploymentDto.class.getAnnotation(JsonPropertyOrder.class).value())));
+
+    /**
+     * Serializes every field; every ObjectMapper writing {@link DeploymentDto} needs it as filter provider.
+     */
+    public static final FilterProvider ALL = new SimpleFilterProvider()
+            .addFilter(FILTER, SimpleBeanPropertyFilter.serializeAll());
+
+    private DeploymentFields() {
+    }
+
+    /**
+     * Parses a comma separated field list, e.g. {@code serviceName,replicas}. Returns null for an empty list.
+     */
+    public static FilterProvider of(String fields) {
+        if (fields == null || fields.trim().isEmpty()) {
+            return null;
+        }
+        Set<String> names = new LinkedHashSet<>();
+        for (String field : fields.split(",")) {
+            String name = field.trim();
+            if (!NAMES.contains(name)) {
+                throw new ServiceException(String.format("Unknown field [%s], expected any of %s", name, NAMES));
+            }
+            names.add(name);
+        }
+        return new SimpleFilterProvider().addFilter(FILTER, SimpleBeanPropertyFilter.filterOutAllExcept(names));
+    }
+}
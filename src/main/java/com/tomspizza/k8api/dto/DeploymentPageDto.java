@@ -0,0 +1,14 @@
+package com.tomspizza.k8api.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+public class DeploymentPageDto {
+    private List<DeploymentDto> items;
+    private String continueToken;
+    private List<String> failedClusters;
+}
@@ -8,4 +8,5 @@ import lombok.Setter;
 public class K8sDto {
     private String namespace;
     private String serviceName;
+    private String cluster;
 }
@@ -0,0 +1,116 @@
+package com.tomspizza.k8api.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+@Getter
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class OperationDto extends K8sDto {
+
+    public enum State {
+        PENDING, RUNNING, SUCCEEDED, FAILED
+    }
+
+    private final String id;
+    private final String type;
+    private final long created;
+    private final List<StepDto> steps = new CopyOnWriteArrayList<>();
+    private volatile State state = State.PENDING;
+    private volatile String message;
+    private volatile Long finished;
+
+    @JsonIgnore
+    private final CompletableFuture<OperationDto> completion = new CompletableFuture<>();
+
+    @JsonIgnore
+    private final List<Consumer<OperationDto>> listeners = new ArrayList<>();
+
+    public OperationDto(String id, String type, K8sDto k8sDto) {
+        this.id = id;
+        this.type = type;
+        this.created = System.currentTimeMillis();
+        setNamespace(k8sDto.getNamespace());
+        setServiceName(k8sDto.getServiceName());
+        setCluster(k8sDto.getCluster());
+    }
+
+    public void start() {
+        List<Consumer<OperationDto>> snapshot;
+        synchronized (this) {
+            state = State.RUNNING;
+            snapshot = new ArrayList<>(listeners);
+        }
+        notifyListeners(snapshot);
+    }
+
+    public void step(String name) {
+        List<Consumer<OperationDto>> snapshot;
+        synchronized (this) {
+            steps.add(new StepDto(name, System.currentTimeMillis()));
+            snapshot = new ArrayList<>(listeners);
+        }
+        notifyListeners(snapshot);
+    }
+
+    public void succeed() {
+        finish(State.SUCCEEDED, null);
+    }
+
+    public void fail(String message) {
+        finish(State.FAILED, message);
+    }
+
+    @JsonIgnore
+    public boolean isDone() {
+        return finished != null;
+    }
+
+    /**
+     * Calls the listener with the current state and then after every change until the operation is done.
+     * Listeners run on the thread that changed the operation, outside its lock, so they must not block;
+     * one that throws is unsubscribed.
+     */
+    public void subscribe(Consumer<OperationDto> listener) {
+        synchronized (this) {
+            if (!isDone()) {
+                listeners.add(listener);
+            }
+        }
+        notifyListeners(Collections.singletonList(listener));
+    }
+
+    public synchronized void unsubscribe(Consumer<OperationDto> listener) {
+        listeners.remove(listener);
+    }
+
+    private void finish(State state, String message) {
+        List<Consumer<OperationDto>> snapshot;
+        synchronized (this) {
+            this.state = state;
+            this.message = message;
+            this.finished = System.currentTimeMillis();
+            snapshot = new ArrayList<>(listeners);
+            listeners.clear();
+        }
+        notifyListeners(snapshot);
+        completion.complete(this);
+    }
+
+    private void notifyListeners(List<Consumer<OperationDto>> snapshot) {
+        for (Consumer<OperationDto> listener : snapshot) {
+            try {
+                listener.accept(this);
+            } catch (RuntimeException e) {
+                unsubscribe(listener);
+            }
+        }
+    }
+}
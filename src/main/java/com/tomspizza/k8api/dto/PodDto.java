@@ -0,0 +1,47 @@
+package com.tomspizza.k8api.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.fabric8.kubernetes.api.model.ContainerStatus;
+import io.fabric8.kubernetes.api.model.Pod;
+import io.fabric8.kubernetes.api.model.PodCondition;
+import io.fabric8.kubernetes.api.model.PodStatus;
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class PodDto {
+    private String name;
+    private String phase;
+    private int restarts;
+    private boolean ready;
+    /**
+     * Why a container is not running, e.g. {@code CrashLoopBackOff} or {@code ImagePullBackOff}.
+     */
+    private String reason;
+
+    public PodDto(Pod pod) {
+        this.name = pod.getMetadata().getName();
+        PodStatus status = pod.getStatus();
+        if (status == null) {
+            return;
+        }
+        this.phase = status.getPhase();
+        if (status.getConditions() != null) {
+            for (PodCondition condition : status.getConditions()) {
+                if ("Ready".equals(condition.getType())) {
+                    this.ready = "True".equals(condition.getStatus());
+                }
+            }
+        }
+        if (status.getContainerStatuses() != null) {
+            for (ContainerStatus containerStatus : status.getContainerStatuses()) {
+                restarts += containerStatus.getRestartCount() == null ? 0 : containerStatus.getRestartCount();
+                if (reason == null && containerStatus.getState() != null && containerStatus.getState().getWaiting() != null) {
+                    reason = containerStatus.getState().getWaiting().getReason();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.tomspizza.k8api.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.concurrent.CompletionException;
+
+@Getter
+@Setter
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ResultDto extends K8sDto {
+    private boolean success;
+    private String message;
+    private Integer replicas;
+
+    public ResultDto(K8sDto k8sDto) {
+        setNamespace(k8sDto.getNamespace());
+        setServiceName(k8sDto.getServiceName());
+        setCluster(k8sDto.getCluster());
+    }
+
+    public void fail(Throwable e) {
+        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+        this.success = false;
+        this.message = cause.getMessage();
+    }
+}
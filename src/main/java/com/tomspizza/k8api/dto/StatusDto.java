@@ -0,0 +1,19 @@
+package com.tomspizza.k8api.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class StatusDto {
+    private boolean deploymentCacheEnabled;
+    private boolean deploymentCacheReady;
+    private int deploymentCacheSize;
+    private String deploymentCacheResourceVersion;
+    private long deploymentCacheStalenessMillis;
+    private boolean ingressAddressReady;
+    private String ingressAddress;
+    private long ingressAddressUpdated;
+}
@@ -0,0 +1,16 @@
+package com.tomspizza.k8api.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+public class StepDto {
+    private String name;
+    private long time;
+
+    public StepDto(String name, long time) {
+        this.name = name;
+        this.time = time;
+    }
+}
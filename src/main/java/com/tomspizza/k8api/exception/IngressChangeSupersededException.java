@@ -0,0 +1,7 @@
+package com.tomspizza.k8api.exception;
+
+public class IngressChangeSupersededException extends ServiceException {
+    public IngressChangeSupersededException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,15 @@
+package com.tomspizza.k8api.exception;
+
+public class TooManyRequestsException extends ServiceException {
+
+    private final long retryAfterSeconds;
+
+    public TooManyRequestsException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
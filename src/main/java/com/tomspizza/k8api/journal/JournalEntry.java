@@ -0,0 +1,37 @@
+package com.tomspizza.k8api.journal;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Handle of one running operation. Steps and the end are appended without waiting for the disk: losing
+ * them in a crash only means the operation is resumed and repeats steps that are idempotent anyway.
+ */
+public class JournalEntry {
+
+    private final OperationJournal journal;
+
+    private final JournalOperation operation;
+
+    private final AtomicBoolean ended = new AtomicBoolean();
+
+    JournalEntry(OperationJournal journal, JournalOperation operation) {
+        this.journal = journal;
+        this.operation = operation;
+    }
+
+    public boolean isDone(String step) {
+        return operation.getSteps().contains(step);
+    }
+
+    public void step(String step) {
+        if (operation.getSteps().add(step)) {
+            journal.step(operation.getId(), step);
+        }
+    }
+
+    public void end() {
+        if (ended.compareAndSet(false, true)) {
+            journal.end(operation.getId());
+        }
+    }
+}
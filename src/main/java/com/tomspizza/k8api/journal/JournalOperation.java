@@ -0,0 +1,79 @@
+package com.tomspizza.k8api.journal;
+
+import com.tomspizza.k8api.dto.DeployDto;
+import com.tomspizza.k8api.dto.K8sDto;
+import lombok.Getter;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * A deploy or delete as written to the journal: what to apply and the steps already done.
+ */
+@Getter
+public class JournalOperation {
+
+    public enum Type {
+        DEPLOY, DELETE
+    }
+
+    private final Type type;
+
+    private final String cluster;
+
+    private final String namespace;
+
+    private final String serviceName;
+
+    private final String image;
+
+    private long id;
+
+    private final Set<String> steps = Collections.synchronizedSet(new LinkedHashSet<>());
+
+    JournalOperation(Type type, String cluster, String namespace, String serviceName, String image) {
+        this.type = type;
+        this.cluster = cluster;
+        this.namespace = namespace;
+        this.serviceName = serviceName;
+        this.image = image;
+    }
+
+    public static JournalOperation deploy(String cluster, DeployDto deployDto) {
+        return new JournalOperation(Type.DEPLOY, cluster, deployDto.getNamespace(), deployDto.getServiceName(),
+                deployDto.getImage());
+    }
+
+    public static JournalOperation delete(String cluster, K8sDto k8sDto) {
+        return new JournalOperation(Type.DELETE, cluster, k8sDto.getNamespace(), k8sDto.getServiceName(), null);
+    }
+
+    public DeployDto toDeployDto() {
+        DeployDto deployDto = new DeployDto();
+        deployDto.setCluster(cluster);
+        deployDto.setNamespace(namespace);
+        deployDto.setServiceName(serviceName);
+        deployDto.setImage(image);
+        return deployDto;
+    }
+
+    public K8sDto toK8sDto() {
+        K8sDto k8sDto = new K8sDto();
+        k8sDto.setCluster(cluster);
+        k8sDto.setNamespace(namespace);
+        k8sDto.setServiceName(serviceName);
+        return k8sDto;
+    }
+
+    void setId(long id) {
+        this.id = id;
+    }
+
+    /**
+     * Operations on the same object, of which only the latest one is resumed.
+     */
+    String getTarget() {
+        return cluster + "/" + namespace + "/" + serviceName;
+    }
+}
@@ -0,0 +1,110 @@
+package com.tomspizza.k8api.journal;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * One preallocated, memory-mapped journal file. Records are {@code length, crc32, payload}; the zeroed rest of
+ * the file marks the end, and a record with a bad checksum is a write torn by a crash.
+ */
+@Slf4j
+class JournalSegment {
+
+    private static final int HEADER = 8;
+
+    private final long id;
+
+    private final Path path;
+
+    private final MappedByteBuffer buffer;
+
+    private int position;
+
+    /**
+     * Operations begun in this segment that have not ended yet.
+     */
+    int open;
+
+    private JournalSegment(long id, Path path, MappedByteBuffer buffer) {
+        this.id = id;
+        this.path = path;
+        this.buffer = buffer;
+    }
+
+    static JournalSegment create(Path directory, long id, int size) throws IOException {
+        Path path = directory.resolve(fileName(id));
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            return new JournalSegment(id, path, channel.map(FileChannel.MapMode.READ_WRITE, 0, size));
+        }
+    }
+
+    static String fileName(long id) {
+        return String.format("journal-%020d.log", id);
+    }
+
+    static void read(Path path, Consumer<ByteBuffer> consumer) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(path));
+        while (buffer.remaining() >= HEADER) {
+            int length = buffer.getInt();
+            if (length <= 0 || length > buffer.remaining() - 4) {
+                return;
+            }
+            int crc = buffer.getInt();
+            byte[] payload = new byte[length];
+            buffer.get(payload);
+            if (crc != checksum(payload)) {
+                log.warn("Ignoring torn record at the end of journal {}", path.getFileName());
+                return;
+            }
+            consumer.accept(ByteBuffer.wrap(payload));
+        }
+    }
+
+    long getId() {
+        return id;
+    }
+
+    boolean fits(byte[] payload) {
+        return buffer.capacity() - position >= HEADER + payload.length;
+    }
+
+    /**
+     * Copies the record into the mapping; it reaches the disk with the next {@link #force()}.
+     */
+    int write(byte[] payload) {
+        buffer.position(position);
+        buffer.putInt(payload.length);
+        buffer.putInt(checksum(payload));
+        buffer.put(payload);
+        position += HEADER + payload.length;
+        return HEADER + payload.length;
+    }
+
+    void force() {
+        buffer.force();
+    }
+
+    void delete() {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("Failed to delete journal {}: {}", path.getFileName(), e.getMessage());
+        }
+    }
+
+    private static int checksum(byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(payload, 0, payload.length);
+        return (int) crc.getValue();
+    }
+}
@@ -0,0 +1,396 @@
+package com.tomspizza.k8api.journal;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Append-only journal of deploys and deletes, so an operation cut short by a restart can be finished.
+ * Records are copied into memory-mapped segments and a single sync thread forces them to disk, so every
+ * record appended while one sync runs is made durable by the next one (group commit). Only {@link #begin}
+ * waits for the disk. Segments are deleted oldest first, once every operation begun in them has ended: a
+ * segment also holds the steps and ends of operations begun in older ones, so it is kept as long as those are.
+ */
+@Slf4j
+public class OperationJournal implements AutoCloseable {
+
+    private static final Pattern FILE_NAME = Pattern.compile("journal-(\\d+)\\.log");
+
+    private static final byte BEGIN = 1;
+    private static final byte STEP = 2;
+    private static final byte END = 3;
+
+    private final Path directory;
+
+    private final int segmentSize;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final Condition dirty = lock.newCondition();
+
+    private final Condition durable = lock.newCondition();
+
+    private final Map<Long, JournalSegment> openOperations = new HashMap<>();
+
+    private final List<JournalSegment> segments = new ArrayList<>();
+
+    private List<JournalOperation> incomplete = Collections.emptyList();
+
+    private JournalSegment active;
+
+    private long nextOperationId = 1;
+
+    private long written;
+
+    private long synced;
+
+    private long records;
+
+    private long syncs;
+
+    private boolean running;
+
+    private Thread syncThread;
+
+    public OperationJournal(Path directory, int segmentSize) {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+    }
+
+    /**
+     * A journal that records nothing.
+     */
+    public static OperationJournal disabled() {
+        return new OperationJournal(null, 0);
+    }
+
+    public boolean isEnabled() {
+        return directory != null;
+    }
+
+    /**
+     * Reads the existing segments, copies the operations that never ended into a new segment, deletes the
+     * old ones and starts the sync thread. When an object has several unfinished operations only the latest
+     * one is kept, so a deploy is not resumed over the delete that followed it.
+     */
+    public void open() throws IOException {
+        if (!isEnabled()) {
+            return;
+        }
+        Files.createDirectories(directory);
+        TreeMap<Long, Path> files = new TreeMap<>();
+        try (Stream<Path> list = Files.list(directory)) {
+            list.forEach(path -> {
+                Matcher matcher = FILE_NAME.matcher(path.getFileName().toString());
+                if (matcher.matches()) {
+                    files.put(Long.parseLong(matcher.group(1)), path);
+                }
+            });
+        }
+
+        Map<Long, JournalOperation> operations = new LinkedHashMap<>();
+        Set<Long> ended = new HashSet<>();
+        for (Path file : files.values()) {
+            JournalSegment.read(file, payload -> {
+                byte type = payload.get();
+                long id = payload.getLong();
+                nextOperationId = Math.max(nextOperationId, id + 1);
+                if (type == BEGIN) {
+                    JournalOperation operation = new JournalOperation(JournalOperation.Type.valueOf(readString(payload)),
+                            readString(payload), readString(payload), readString(payload), readString(payload));
+                    operation.setId(id);
+                    operations.put(id, operation);
+                } else if (type == STEP && operations.containsKey(id)) {
+                    operations.get(id).getSteps().add(readString(payload));
+                } else if (type == END) {
+                    ended.add(id);
+                }
+            });
+        }
+        Map<String, JournalOperation> latest = new LinkedHashMap<>();
+        operations.values().forEach(operation -> latest.put(operation.getTarget(), operation));
+        incomplete = latest.values().stream()
+                .filter(operation -> !ended.contains(operation.getId()))
+                .collect(Collectors.toList());
+
+        active = JournalSegment.create(directory, files.isEmpty() ? 1 : files.lastKey() + 1, segmentSize);
+        segments.add(active);
+        lock.lock();
+        try {
+            for (JournalOperation operation : incomplete) {
+                write(operation.getId(), encodeBegin(operation));
+                for (String step : new ArrayList<>(operation.getSteps())) {
+                    append(encode(STEP, operation.getId(), step));
+                }
+            }
+            active.force();
+            synced = written;
+        } finally {
+            lock.unlock();
+        }
+        for (Path file : files.values()) {
+            Files.deleteIfExists(file);
+        }
+        if (!incomplete.isEmpty()) {
+            log.info("Journal has {} operation(s) interrupted by the last shutdown", incomplete.size());
+        }
+
+        running = true;
+        syncThread = new Thread(this::syncLoop, "journal-sync");
+        syncThread.setDaemon(true);
+        syncThread.start();
+    }
+
+    /**
+     * Operations found unfinished when the journal was opened. They stay open until resumed and ended.
+     */
+    public List<JournalOperation> getIncomplete() {
+        return incomplete;
+    }
+
+    /**
+     * Journals a new operation and waits until it is on disk.
+     */
+    public JournalEntry begin(JournalOperation operation) {
+        if (!isEnabled()) {
+            return new JournalEntry(this, operation);
+        }
+        long position;
+        lock.lock();
+        try {
+            operation.setId(nextOperationId++);
+            position = write(operation.getId(), encodeBegin(operation));
+        } finally {
+            lock.unlock();
+        }
+        awaitSync(position);
+        return new JournalEntry(this, operation);
+    }
+
+    /**
+     * Continues an operation returned by {@link #getIncomplete()}; its done steps are skipped.
+     */
+    public JournalEntry resume(JournalOperation operation) {
+        return new JournalEntry(this, operation);
+    }
+
+    void step(long id, String step) {
+        if (isEnabled()) {
+            lock.lock();
+            try {
+                append(encode(STEP, id, step));
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    void end(long id) {
+        if (!isEnabled()) {
+            return;
+        }
+        lock.lock();
+        try {
+            append(encode(END, id));
+            JournalSegment segment = openOperations.remove(id);
+            if (segment != null && --segment.open == 0) {
+                compact();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getSegmentCount() {
+        lock.lock();
+        try {
+            return segments.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getOpenCount() {
+        lock.lock();
+        try {
+            return openOperations.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getRecordCount() {
+        lock.lock();
+        try {
+            return records;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getSyncCount() {
+        lock.lock();
+        try {
+            return syncs;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        if (!isEnabled() || syncThread == null) {
+            return;
+        }
+        lock.lock();
+        try {
+            running = false;
+            dirty.signal();
+        } finally {
+            lock.unlock();
+        }
+        syncThread.join();
+    }
+
+    private long write(long id, byte[] begin) {
+        long position = append(begin);
+        openOperations.put(id, active);
+        active.open++;
+        return position;
+    }
+
+    private long append(byte[] payload) {
+        if (!active.fits(payload)) {
+            roll(payload.length);
+        }
+        written += active.write(payload);
+        records++;
+        dirty.signal();
+        return written;
+    }
+
+    /**
+     * Seals the active segment and starts the next one. The sealed segment is forced right away, so the
+     * sync thread only ever has to force the active one.
+     */
+    private void roll(int length) {
+        if (length + 8 > segmentSize) {
+            throw new IllegalArgumentException("Journal record of " + length + " bytes exceeds the segment size");
+        }
+        JournalSegment sealed = active;
+        sealed.force();
+        try {
+            active = JournalSegment.create(directory, sealed.getId() + 1, segmentSize);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to create journal segment", e);
+        }
+        segments.add(active);
+        compact();
+    }
+
+    /**
+     * Deletes the leading segments without open operations. A finished segment behind an open one is kept,
+     * as it may hold the end of an operation begun in the open one.
+     */
+    private void compact() {
+        while (segments.get(0) != active && segments.get(0).open == 0) {
+            JournalSegment segment = segments.remove(0);
+            log.debug("Deleting finished journal {}", JournalSegment.fileName(segment.getId()));
+            segment.delete();
+        }
+    }
+
+    private void awaitSync(long position) {
+        lock.lock();
+        try {
+            while (synced < position && running) {
+                durable.awaitUninterruptibly();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void syncLoop() {
+        lock.lock();
+        try {
+            while (running || written > synced) {
+                if (written == synced) {
+                    dirty.awaitUninterruptibly();
+                    continue;
+                }
+                long target = written;
+                JournalSegment segment = active;
+                lock.unlock();
+                try {
+                    segment.force();
+                } finally {
+                    lock.lock();
+                }
+                synced = target;
+                syncs++;
+                durable.signalAll();
+            }
+        } finally {
+            durable.signalAll();
+            lock.unlock();
+        }
+    }
+
+    private static byte[] encodeBegin(JournalOperation operation) {
+        return encode(BEGIN, operation.getId(), operation.getType().name(), operation.getCluster(),
+                operation.getNamespace(), operation.getServiceName(), operation.getImage());
+    }
+
+    private static byte[] encode(byte type, long id, String... values) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(type);
+            out.writeLong(id);
+            for (String value : values) {
+                if (value == null) {
+                    out.writeInt(-1);
+                } else {
+                    byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+                    out.writeInt(utf8.length);
+                    out.write(utf8);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static String readString(ByteBuffer payload) {
+        int length = payload.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] utf8 = new byte[length];
+        payload.get(utf8);
+        return new String(utf8, StandardCharsets.UTF_8);
+    }
+}
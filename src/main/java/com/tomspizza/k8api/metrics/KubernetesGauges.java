@@ -0,0 +1,120 @@
+package com.tomspizza.k8api.metrics;
+
+import com.tomspizza.k8api.cache.DeploymentCache;
+import com.tomspizza.k8api.cache.DeploymentProjectionCache;
+import com.tomspizza.k8api.cache.IngressAddressCache;
+import com.tomspizza.k8api.cache.NamespaceCache;
+import com.tomspizza.k8api.cluster.ClusterRegistry;
+import com.tomspizza.k8api.journal.OperationJournal;
+import com.tomspizza.k8api.service.DeploymentWatchHub;
+import com.tomspizza.k8api.service.IngressReconciler;
+import com.tomspizza.k8api.service.OperationRegistry;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.RequiredArgsConstructor;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import org.springframework.stereotype.Component;
+
+@Component
+@RequiredArgsConstructor
+public class KubernetesGauges implements MeterBinder {
+
+    private final ClusterRegistry clusterRegistry;
+
+    private final DeploymentCache deploymentCache;
+
+    private final IngressAddressCache ingressAddressCache;
+
+    private final DeploymentProjectionCache projectionCache;
+
+    private final NamespaceCache namespaceCache;
+
+    private final OperationRegistry operationRegistry;
+
+    private final DeploymentWatchHub deploymentWatchHub;
+
+    private final IngressReconciler ingressReconciler;
+
+    private final OperationJournal operationJournal;
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (String cluster : clusterRegistry.getNames()) {
+            ConnectionPool pool = clusterRegistry.getClient(cluster).getHttpClient().connectionPool();
+            Gauge.builder("k8s.client.connections", pool, ConnectionPool::connectionCount)
+                    .description("Connections in the Kubernetes client pool")
+                    .tag("state", "all")
+                    .tag("cluster", cluster)
+                    .register(registry);
+            Gauge.builder("k8s.client.connections", pool, ConnectionPool::idleConnectionCount)
+                    .description("Connections in the Kubernetes client pool")
+                    .tag("state", "idle")
+                    .tag("cluster", cluster)
+                    .register(registry);
+
+            Dispatcher dispatcher = clusterRegistry.getClient(cluster).getHttpClient().dispatcher();
+            Gauge.builder("k8s.client.calls", dispatcher, Dispatcher::runningCallsCount)
+                    .description("Asynchronous calls of the Kubernetes client")
+                    .tag("state", "running")
+                    .tag("cluster", cluster)
+                    .register(registry);
+            Gauge.builder("k8s.client.calls", dispatcher, Dispatcher::queuedCallsCount)
+                    .description("Asynchronous calls of the Kubernetes client")
+                    .tag("state", "queued")
+                    .tag("cluster", cluster)
+                    .register(registry);
+        }
+
+        Gauge.builder("k8s.cache.deployments.ready", deploymentCache, c -> c.isReady() ? 1 : 0)
+                .register(registry);
+        Gauge.builder("k8s.cache.deployments.size", deploymentCache, DeploymentCache::size)
+                .register(registry);
+        Gauge.builder("k8s.cache.deployments.staleness", deploymentCache, DeploymentCache::getStalenessMillis)
+                .description("Milliseconds since the deployment cache last matched the API server, -1 when not synced")
+                .baseUnit("milliseconds")
+                .register(registry);
+        Gauge.builder("k8s.cache.projections.size", projectionCache, DeploymentProjectionCache::size)
+                .register(registry);
+        FunctionCounter.builder("k8s.cache.projections.lookups", projectionCache, DeploymentProjectionCache::getHits)
+                .tag("result", "hit")
+                .register(registry);
+        FunctionCounter.builder("k8s.cache.projections.lookups", projectionCache, DeploymentProjectionCache::getMisses)
+                .tag("result", "miss")
+                .register(registry);
+        Gauge.builder("k8s.cache.namespaces.size", namespaceCache, NamespaceCache::size)
+                .register(registry);
+        FunctionCounter.builder("k8s.cache.namespaces.lookups", namespaceCache, NamespaceCache::getHits)
+                .tag("result", "hit")
+                .register(registry);
+        FunctionCounter.builder("k8s.cache.namespaces.lookups", namespaceCache, NamespaceCache::getMisses)
+                .tag("result", "miss")
+                .register(registry);
+        Gauge.builder("k8s.cache.ingress.address.ready", ingressAddressCache, c -> c.isReady() ? 1 : 0)
+                .register(registry);
+
+        Gauge.builder("k8s.operations", operationRegistry, OperationRegistry::size)
+                .description("Asynchronous operations kept in the registry")
+                .register(registry);
+        Gauge.builder("k8s.watch.subscribers", deploymentWatchHub, DeploymentWatchHub::getSubscriberCount)
+                .register(registry);
+        Gauge.builder("k8s.reconciler.pending", ingressReconciler, IngressReconciler::getPendingCount)
+                .description("Service names waiting to be compared with the ingress paths")
+                .register(registry);
+
+        if (operationJournal.isEnabled()) {
+            Gauge.builder("k8s.journal.segments", operationJournal, OperationJournal::getSegmentCount)
+                    .register(registry);
+            Gauge.builder("k8s.journal.operations", operationJournal, OperationJournal::getOpenCount)
+                    .description("Journaled deploys and deletes that have not ended")
+                    .register(registry);
+            FunctionCounter.builder("k8s.journal.records", operationJournal, OperationJournal::getRecordCount)
+                    .register(registry);
+            FunctionCounter.builder("k8s.journal.syncs", operationJournal, OperationJournal::getSyncCount)
+                    .description("Forces of the journal to disk, each covering every record appended before it")
+                    .register(registry);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.tomspizza.k8api.metrics;
+
+import io.fabric8.kubernetes.api.model.KubernetesResourceList;
+import io.fabric8.kubernetes.client.KubernetesClientException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+@Component
+@RequiredArgsConstructor
+public class KubernetesMetrics {
+
+    private static final String NONE = "none";
+
+    @Value("${app.metrics.namespaceTag}")
+    private boolean namespaceTag;
+
+    private final MeterRegistry registry;
+
+    public <T> T record(String operation, String namespace, Supplier<T> call) {
+        long start = System.nanoTime();
+        try {
+            T result = call.get();
+            recordCall(operation, namespace, System.nanoTime() - start, null);
+            recordItems(operation, result);
+            return result;
+        } catch (RuntimeException e) {
+            recordCall(operation, namespace, System.nanoTime() - start, e);
+            throw e;
+        }
+    }
+
+    public void recordCall(String operation, String namespace, long nanos, Throwable error) {
+        String namespaceValue = namespaceTag && namespace != null ? namespace : NONE;
+        Timer.builder("k8s.api.calls")
+                .description("Latency of Kubernetes API operations")
+                .tag("operation", operation)
+                .tag("namespace", namespaceValue)
+                .tag("outcome", error == null ? "success" : "error")
+                .publishPercentileHistogram()
+                .register(registry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+        if (error != null) {
+            Counter.builder("k8s.api.errors")
+                    .description("Failed Kubernetes API operations")
+                    .tag("operation", operation)
+                    .tag("namespace", namespaceValue)
+                    .tag("error", errorTag(error))
+                    .register(registry)
+                    .increment();
+        }
+    }
+
+    public void recordItems(String operation, Object result) {
+        int items;
+        if (result instanceof KubernetesResourceList) {
+            items = ((KubernetesResourceList<?>) result).getItems().size();
+        } else if (result instanceof Collection) {
+            items = ((Collection<?>) result).size();
+        } else {
+            return;
+        }
+        DistributionSummary.builder("k8s.api.list.items")
+                .description("Items returned by Kubernetes list operations")
+                .tag("operation", operation)
+                .register(registry)
+                .record(items);
+    }
+
+    public void recordDeploy(Map<String, Long> phases, long total, boolean waitForReady) {
+        phases.forEach((phase, nanos) -> Timer.builder("k8s.deploy.phases")
+                .description("Duration of the phases of a deploy")
+                .tag("phase", phase)
+                .publishPercentileHistogram()
+                .register(registry)
+                .record(nanos, TimeUnit.NANOSECONDS));
+        Timer.builder("k8s.deploy.duration")
+                .description("End to end duration of a deploy")
+                .tag("waitForReady", String.valueOf(waitForReady))
+                .publishPercentileHistogram()
+                .register(registry)
+                .record(total, TimeUnit.NANOSECONDS);
+    }
+
+    private static String errorTag(Throwable error) {
+        if (error instanceof KubernetesClientException && ((KubernetesClientException) error).getCode() > 0) {
+            return String.valueOf(((KubernetesClientException) error).getCode());
+        }
+        return error.getClass().getSimpleName();
+    }
+}
@@ -0,0 +1,238 @@
+package com.tomspizza.k8api.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Gzips list responses for clients sending {@code Accept-Encoding: gzip} and records, per format (JSON, Smile,
+ * CBOR) and encoding, the bytes sent and the time from the start of the body to its last byte.
+ */
+public class ListEncodingFilter extends OncePerRequestFilter {
+
+    private static final String GZIP = "gzip";
+
+    private final MeterRegistry registry;
+
+    private final boolean compression;
+
+    public ListEncodingFilter(MeterRegistry registry, boolean compression) {
+        this.registry = registry;
+        this.compression = compression;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        boolean gzip = compression && acceptsGzip(request.getHeader(HttpHeaders.ACCEPT_ENCODING));
+        // the format and so the ETag depend on Accept, the body bytes on Accept-Encoding
+        response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        if (compression) {
+            response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        }
+        EncodingResponse encodingResponse = new EncodingResponse(response, gzip);
+        try {
+            chain.doFilter(request, encodingResponse);
+        } finally {
+            encodingResponse.finish();
+        }
+    }
+
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            if (parts[0].trim().equalsIgnoreCase(GZIP) || parts[0].trim().equals("*")) {
+                return parts.length == 1 || !parts[1].trim().matches("q=0(\\.0*)?");
+            }
+        }
+        return false;
+    }
+
+    private void record(String contentType, String encoding, long bytes, long nanos) {
+        String format = format(contentType);
+        DistributionSummary.builder("k8s.list.payload")
+                .description("Size of list responses as sent")
+                .baseUnit("bytes")
+                .tag("format", format)
+                .tag("encoding", encoding)
+                .register(registry)
+                .record(bytes);
+        Timer.builder("k8s.list.encode")
+                .description("Time to serialize and compress list responses")
+                .tag("format", format)
+                .tag("encoding", encoding)
+                .register(registry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    private static String format(String contentType) {
+        if (contentType == null) {
+            return "none";
+        }
+        String subtype = MediaType.parseMediaType(contentType).getSubtype();
+        return subtype.startsWith("x-jackson-") ? subtype.substring("x-jackson-".length()) : subtype;
+    }
+
+    private class EncodingResponse extends HttpServletResponseWrapper {
+
+        private final boolean gzip;
+
+        private CountingOutputStream counter;
+
+        private GZIPOutputStream gzipStream;
+
+        private ServletOutputStream stream;
+
+        private PrintWriter writer;
+
+        private long start;
+
+        private EncodingResponse(HttpServletResponse response, boolean gzip) {
+            super(response);
+            this.gzip = gzip;
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            if (stream == null) {
+                start = System.nanoTime();
+                ServletOutputStream servletStream = super.getOutputStream();
+                counter = new CountingOutputStream(servletStream);
+                OutputStream target = counter;
+                if (gzip) {
+                    setHeader(HttpHeaders.CONTENT_ENCODING, GZIP);
+                    gzipStream = new GZIPOutputStream(counter, 8192);
+                    target = gzipStream;
+                }
+                stream = new ForwardingServletOutputStream(target, servletStream);
+            }
+            return stream;
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            if (writer == null) {
+                writer = new PrintWriter(new OutputStreamWriter(getOutputStream(), getCharacterEncoding()));
+            }
+            return writer;
+        }
+
+        @Override
+        public void setContentLength(int len) {
+            if (!gzip) {
+                super.setContentLength(len);
+            }
+        }
+
+        @Override
+        public void setContentLengthLong(long len) {
+            if (!gzip) {
+                super.setContentLengthLong(len);
+            }
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            if (writer != null) {
+                writer.flush();
+            }
+            super.flushBuffer();
+        }
+
+        private void finish() throws IOException {
+            if (stream == null) {
+                return;
+            }
+            if (writer != null) {
+                writer.flush();
+            }
+            if (gzipStream != null) {
+                gzipStream.finish();
+            }
+            record(getContentType(), gzip ? GZIP : "identity", counter.count, System.nanoTime() - start);
+        }
+    }
+
+    private static class CountingOutputStream extends FilterOutputStream {
+
+        private long count;
+
+        private CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+
+    /**
+     * Writes through the counting (and gzip) streams; readiness and non-blocking writes are those of the
+     * container's stream.
+     */
+    private static class ForwardingServletOutputStream extends ServletOutputStream {
+
+        private final OutputStream out;
+
+        private final ServletOutputStream servletStream;
+
+        private ForwardingServletOutputStream(OutputStream out, ServletOutputStream servletStream) {
+            this.out = out;
+            this.servletStream = servletStream;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            out.flush();
+        }
+
+        @Override
+        public boolean isReady() {
+            return servletStream.isReady();
+        }
+
+        @Override
+        public void setWriteListener(WriteListener writeListener) {
+            servletStream.setWriteListener(writeListener);
+        }
+    }
+}
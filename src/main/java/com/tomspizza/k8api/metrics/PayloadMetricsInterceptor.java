@@ -0,0 +1,63 @@
+package com.tomspizza.k8api.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.Buffer;
+import okio.ForwardingSource;
+import okio.Okio;
+
+import java.io.IOException;
+import java.util.List;
+
+public class PayloadMetricsInterceptor implements Interceptor {
+
+    private static final String NAMESPACES = "namespaces";
+
+    private final MeterRegistry registry;
+
+    public PayloadMetricsInterceptor(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        Response response = chain.proceed(request);
+        ResponseBody body = response.body();
+        if (body == null) {
+            return response;
+        }
+
+        Counter counter = Counter.builder("k8s.api.payload.bytes")
+                .description("Bytes received from the Kubernetes API server")
+                .baseUnit("bytes")
+                .tag("method", request.method())
+                .tag("resource", resourceOf(request.url().pathSegments()))
+                .register(registry);
+        ForwardingSource source = new ForwardingSource(body.source()) {
+            @Override
+            public long read(Buffer sink, long byteCount) throws IOException {
+                long read = super.read(sink, byteCount);
+                if (read > 0) {
+                    counter.increment(read);
+                }
+                return read;
+            }
+        };
+        return response.newBuilder()
+                .body(ResponseBody.create(body.contentType(), body.contentLength(), Okio.buffer(source)))
+                .build();
+    }
+
+    static String resourceOf(List<String> segments) {
+        int index = segments.indexOf(NAMESPACES);
+        if (index >= 0) {
+            return index + 2 < segments.size() ? segments.get(index + 2) : NAMESPACES;
+        }
+        return segments.isEmpty() ? "" : segments.get(segments.size() - 1);
+    }
+}
@@ -0,0 +1,54 @@
+package com.tomspizza.k8api.metrics;
+
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletionStage;
+
+@Aspect
+@Component
+@RequiredArgsConstructor
+public class RepositoryMetricsAspect {
+
+    private static final String NAMESPACE_PARAMETER = "namespace";
+
+    private final KubernetesMetrics kubernetesMetrics;
+
+    @Around("execution(public * com.tomspizza.k8api.repository.KubernetesRepository.*(..))")
+    public Object record(ProceedingJoinPoint joinPoint) throws Throwable {
+        String operation = joinPoint.getSignature().getName();
+        String namespace = namespaceOf(joinPoint);
+        long start = System.nanoTime();
+        Object result;
+        try {
+            result = joinPoint.proceed();
+        } catch (Throwable e) {
+            kubernetesMetrics.recordCall(operation, namespace, System.nanoTime() - start, e);
+            throw e;
+        }
+
+        if (result instanceof CompletionStage) {
+            ((CompletionStage<?>) result).whenComplete((r, e) ->
+                    kubernetesMetrics.recordCall(operation, namespace, System.nanoTime() - start, e));
+        } else {
+            kubernetesMetrics.recordCall(operation, namespace, System.nanoTime() - start, null);
+            kubernetesMetrics.recordItems(operation, result);
+        }
+        return result;
+    }
+
+    private static String namespaceOf(ProceedingJoinPoint joinPoint) {
+        String[] names = ((MethodSignature) joinPoint.getSignature()).getParameterNames();
+        Object[] args = joinPoint.getArgs();
+        for (int i = 0; names != null && i < names.length; i++) {
+            if (NAMESPACE_PARAMETER.equals(names[i]) && args[i] instanceof String) {
+                return (String) args[i];
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,200 @@
+package com.tomspizza.k8api.ratelimit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Client-side limit for Kubernetes API calls, kept per cluster. Reads and writes draw from separate
+ * token buckets so a burst of writes does not delay reads, and each namespace may only have a bounded
+ * number of calls in flight. Callers wait up to {@code app.rateLimit.maxWait}, beyond that the call is rejected
+ * with a {@link RateLimitedException}.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ApiRateLimiter {
+
+    public enum Lane {
+        READ, WRITE
+    }
+
+    @Value("${app.rateLimit.enabled}")
+    private boolean enabled;
+
+    @Value("${app.rateLimit.read.qps}")
+    private double readQps;
+
+    @Value("${app.rateLimit.read.burst}")
+    private int readBurst;
+
+    @Value("${app.rateLimit.read.queueSize}")
+    private int readQueueSize;
+
+    @Value("${app.rateLimit.write.qps}")
+    private double writeQps;
+
+    @Value("${app.rateLimit.write.burst}")
+    private int writeBurst;
+
+    @Value("${app.rateLimit.write.queueSize}")
+    private int writeQueueSize;
+
+    @Value("${app.rateLimit.maxWait}")
+    private long maxWait;
+
+    @Value("${app.rateLimit.namespaceConcurrency}")
+    private int namespaceConcurrency;
+
+    private final MeterRegistry registry;
+
+    private final Map<String, Map<Lane, LaneState>> lanes = new ConcurrentHashMap<>();
+
+    private final Map<String, Bulkhead> bulkheads = new ConcurrentHashMap<>();
+
+    /**
+     * Blocks until the call may be sent. The returned permit must be closed when the call is done.
+     * A null namespace skips the bulkhead (cluster-scoped calls and watches).
+     */
+    public Permit acquire(String cluster, Lane lane, String namespace) throws InterruptedException, RateLimitedException {
+        if (!enabled) {
+            return () -> {
+            };
+        }
+
+        LaneState state = lanes.computeIfAbsent(cluster, this::createLanes).get(lane);
+        long maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(maxWait);
+        if (state.waiting.incrementAndGet() > state.queueSize) {
+            state.waiting.decrementAndGet();
+            throw reject(state, "queue", state.bucket.waitNanos(System.nanoTime()));
+        }
+
+        long start = System.nanoTime();
+        try {
+            long wait = state.bucket.reserve(start, maxWaitNanos);
+            if (wait < 0) {
+                throw reject(state, "rate", state.bucket.waitNanos(start));
+            }
+            if (wait > 0) {
+                TimeUnit.NANOSECONDS.sleep(wait);
+            }
+
+            if (namespace == null) {
+                return () -> {
+                };
+            }
+            String key = cluster + "/" + namespace;
+            Bulkhead bulkhead = enterBulkhead(key);
+            long remaining = maxWaitNanos - (System.nanoTime() - start);
+            if (!bulkhead.permits.tryAcquire(Math.max(remaining, 0L), TimeUnit.NANOSECONDS)) {
+                leaveBulkhead(key);
+                throw reject(state, "namespace", maxWaitNanos);
+            }
+            return () -> {
+                bulkhead.permits.release();
+                leaveBulkhead(key);
+            };
+        } finally {
+            state.waiting.decrementAndGet();
+            state.waitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Bulkheads are counted by the calls holding or waiting for them and dropped when the last one leaves, so
+     * namespaces that are no longer called do not keep a semaphore each.
+     */
+    private Bulkhead enterBulkhead(String key) {
+        return bulkheads.compute(key, (k, bulkhead) -> {
+            Bulkhead entered = bulkhead == null ? new Bulkhead(namespaceConcurrency) : bulkhead;
+            entered.users++;
+            return entered;
+        });
+    }
+
+    private void leaveBulkhead(String key) {
+        bulkheads.computeIfPresent(key, (k, bulkhead) -> --bulkhead.users == 0 ? null : bulkhead);
+    }
+
+    int bulkheadCount() {
+        return bulkheads.size();
+    }
+
+    private Map<Lane, LaneState> createLanes(String cluster) {
+        log.info("Kubernetes API rate limit for cluster [{}]: reads {}/s, writes {}/s, {} calls per namespace",
+                cluster, readQps, writeQps, namespaceConcurrency);
+        long now = System.nanoTime();
+        Map<Lane, LaneState> states = new EnumMap<>(Lane.class);
+        states.put(Lane.READ, new LaneState(cluster, Lane.READ, new TokenBucket(readQps, readBurst, now), readQueueSize));
+        states.put(Lane.WRITE, new LaneState(cluster, Lane.WRITE, new TokenBucket(writeQps, writeBurst, now), writeQueueSize));
+        return states;
+    }
+
+    private RateLimitedException reject(LaneState state, String reason, long waitNanos) {
+        Counter.builder("k8s.ratelimit.rejected")
+                .description("Kubernetes API calls rejected by the client-side rate limit")
+                .tag("cluster", state.cluster)
+                .tag("lane", state.tag)
+                .tag("reason", reason)
+                .register(registry)
+                .increment();
+        long retryAfter = Math.max(1L, (long) Math.ceil(waitNanos / (double) TimeUnit.SECONDS.toNanos(1)));
+        return new RateLimitedException(String.format("Too many Kubernetes %s requests, try again later",
+                state.tag), retryAfter);
+    }
+
+    public interface Permit extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    private static class Bulkhead {
+        private final Semaphore permits;
+        // guarded by the map's compute
+        private int users;
+
+        private Bulkhead(int concurrency) {
+            this.permits = new Semaphore(concurrency);
+        }
+    }
+
+    private class LaneState {
+        private final String cluster;
+        private final String tag;
+        private final TokenBucket bucket;
+        private final int queueSize;
+        private final AtomicInteger waiting = new AtomicInteger();
+        private final Timer waitTimer;
+
+        private LaneState(String cluster, Lane lane, TokenBucket bucket, int queueSize) {
+            this.cluster = cluster;
+            this.tag = lane.name().toLowerCase(Locale.ROOT);
+            this.bucket = bucket;
+            this.queueSize = queueSize;
+            this.waitTimer = Timer.builder("k8s.ratelimit.wait")
+                    .description("Time Kubernetes API calls waited for the client-side rate limit")
+                    .tag("cluster", cluster)
+                    .tag("lane", tag)
+                    .publishPercentileHistogram()
+                    .register(registry);
+            Gauge.builder("k8s.ratelimit.queue", waiting, AtomicInteger::get)
+                    .description("Kubernetes API calls waiting for the client-side rate limit")
+                    .tag("cluster", cluster)
+                    .tag("lane", tag)
+                    .register(registry);
+        }
+    }
+}
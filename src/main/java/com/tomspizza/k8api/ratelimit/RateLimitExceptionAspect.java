@@ -0,0 +1,29 @@
+package com.tomspizza.k8api.ratelimit;
+
+import io.fabric8.kubernetes.client.KubernetesClientException;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.stereotype.Component;
+
+/**
+ * Turns a call rejected by the rate limit, which the client library wraps in a KubernetesClientException,
+ * back into a TooManyRequestsException, answered with 429 and Retry-After.
+ */
+@Aspect
+@Component
+public class RateLimitExceptionAspect {
+
+    @Around("execution(public * com.tomspizza.k8api.repository.KubernetesRepository.*(..))")
+    public Object translate(ProceedingJoinPoint joinPoint) throws Throwable {
+        try {
+            return joinPoint.proceed();
+        } catch (KubernetesClientException e) {
+            RateLimitedException limited = RateLimitedException.causeOf(e);
+            if (limited == null) {
+                throw e;
+            }
+            throw limited.toTooManyRequests();
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.tomspizza.k8api.ratelimit;
+
+import okhttp3.HttpUrl;
+import okhttp3.Interceptor;
+import okhttp3.Response;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.List;
+
+public class RateLimitInterceptor implements Interceptor {
+
+    private static final String NAMESPACES = "namespaces";
+
+    private final ApiRateLimiter limiter;
+
+    private final String cluster;
+
+    public RateLimitInterceptor(ApiRateLimiter limiter, String cluster) {
+        this.limiter = limiter;
+        this.cluster = cluster;
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        String method = chain.request().method();
+        ApiRateLimiter.Lane lane = "GET".equals(method) || "HEAD".equals(method)
+                ? ApiRateLimiter.Lane.READ : ApiRateLimiter.Lane.WRITE;
+        HttpUrl url = chain.request().url();
+        // Watches stay open, holding a namespace slot for them would block other calls
+        String namespace = "true".equals(url.queryParameter("watch")) ? null : namespaceOf(url.pathSegments());
+
+        try (ApiRateLimiter.Permit ignored = limiter.acquire(cluster, lane, namespace)) {
+            return chain.proceed(chain.request());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for the rate limit");
+        }
+    }
+
+    static String namespaceOf(List<String> segments) {
+        int index = segments.indexOf(NAMESPACES);
+        return index >= 0 && index + 1 < segments.size() && !segments.get(index + 1).isEmpty()
+                ? segments.get(index + 1) : null;
+    }
+}
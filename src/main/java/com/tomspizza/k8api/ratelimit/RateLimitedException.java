@@ -0,0 +1,39 @@
+package com.tomspizza.k8api.ratelimit;
+
+import com.tomspizza.k8api.exception.TooManyRequestsException;
+
+import java.io.IOException;
+
+/**
+ * Thrown by the rate limit interceptor. It is an IOException because OkHttp only hands those to the callback of
+ * an asynchronous call (watches, informers); anything else is lost on the dispatcher thread.
+ */
+public class RateLimitedException extends IOException {
+
+    private final long retryAfterSeconds;
+
+    public RateLimitedException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+
+    public TooManyRequestsException toTooManyRequests() {
+        return new TooManyRequestsException(getMessage(), retryAfterSeconds);
+    }
+
+    /**
+     * Finds the rejection somewhere in the cause chain; the client library and the ingress queue both wrap it.
+     */
+    public static RateLimitedException causeOf(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof RateLimitedException) {
+                return (RateLimitedException) cause;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,52 @@
+package com.tomspizza.k8api.ratelimit;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token bucket handing out reservations: a caller that finds the bucket empty takes a token on credit
+ * and is told how long to wait, so waiting callers are served in order at the configured rate.
+ */
+public class TokenBucket {
+
+    private static final long NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final double rate;
+
+    private final double burst;
+
+    private double tokens;
+
+    private long last;
+
+    public TokenBucket(double rate, double burst, long now) {
+        this.rate = rate;
+        this.burst = burst;
+        this.tokens = burst;
+        this.last = now;
+    }
+
+    /**
+     * Takes a token and returns the nanoseconds to wait before using it, or -1 without taking
+     * anything when the wait would exceed {@code maxWaitNanos}.
+     */
+    public synchronized long reserve(long now, long maxWaitNanos) {
+        long wait = waitNanos(now);
+        if (wait > maxWaitNanos) {
+            return -1L;
+        }
+        tokens -= 1;
+        return wait;
+    }
+
+    public synchronized long waitNanos(long now) {
+        refill(now);
+        return tokens >= 1 ? 0L : (long) ((1 - tokens) / rate * NANOS_PER_SECOND);
+    }
+
+    private void refill(long now) {
+        if (now > last) {
+            tokens = Math.min(burst, tokens + (now - last) * rate / NANOS_PER_SECOND);
+            last = now;
+        }
+    }
+}
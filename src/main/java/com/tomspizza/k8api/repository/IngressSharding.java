@@ -0,0 +1,43 @@
+package com.tomspizza.k8api.repository;
+
+import java.nio.charset.StandardCharsets;
+
+public class IngressSharding {
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private IngressSharding() {
+    }
+
+    public static int shardOf(String serviceName, int shards) {
+        int shard = 0;
+        long best = Long.MIN_VALUE;
+        for (int i = 0; i < shards; i++) {
+            long weight = weight(serviceName, i);
+            if (weight > best) {
+                best = weight;
+                shard = i;
+            }
+        }
+        return shard;
+    }
+
+    public static String shardName(String ingressName, int shard) {
+        return shard == 0 ? ingressName : ingressName + "-" + shard;
+    }
+
+    private static long weight(String serviceName, int shard) {
+        long hash = FNV_OFFSET;
+        for (byte b : serviceName.getBytes(StandardCharsets.UTF_8)) {
+            hash = (hash ^ b) * FNV_PRIME;
+        }
+        hash = (hash ^ shard) * FNV_PRIME;
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
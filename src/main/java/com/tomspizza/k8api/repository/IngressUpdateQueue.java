@@ -0,0 +1,142 @@
+package com.tomspizza.k8api.repository;
+
+import com.tomspizza.k8api.exception.IngressChangeSupersededException;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+@Slf4j
+public class IngressUpdateQueue {
+
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "ingress-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Map<String, PendingChange> pending = new LinkedHashMap<>();
+
+    private final long window;
+
+    private final Function<Map<String, Boolean>, Map<String, RuntimeException>> writer;
+
+    private boolean scheduled;
+
+    /**
+     * @param writer writes a batch of changes and returns the failure of each service whose change was not written
+     */
+    public IngressUpdateQueue(long window, Function<Map<String, Boolean>, Map<String, RuntimeException>> writer) {
+        this.window = window;
+        this.writer = writer;
+    }
+
+    public CompletableFuture<Void> register(String serviceName) {
+        return submit(serviceName, true);
+    }
+
+    public CompletableFuture<Void> unregister(String serviceName) {
+        return submit(serviceName, false);
+    }
+
+    /**
+     * Queues a path change. Changes to the same service within one window are merged; when the later one
+     * reverses the earlier one, only the later one is written and the earlier callers' futures fail with
+     * {@link IngressChangeSupersededException}.
+     */
+    public synchronized CompletableFuture<Void> submit(String serviceName, boolean register) {
+        PendingChange change = pending.computeIfAbsent(serviceName, k -> new PendingChange());
+        if (change.register != register && !change.futures.isEmpty()) {
+            IngressChangeSupersededException superseded = new IngressChangeSupersededException(String.format(
+                    "Ingress path of service [%s] was %s by a later change before it was written", serviceName,
+                    register ? "registered again" : "unregistered"));
+            change.futures.forEach(f -> f.completeExceptionally(superseded));
+            change.futures.clear();
+        }
+        change.register = register;
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        change.futures.add(future);
+
+        if (!scheduled) {
+            scheduled = true;
+            executor.schedule(this::flush, window, TimeUnit.MILLISECONDS);
+        }
+        return future;
+    }
+
+    /**
+     * Queues several changes at once so they are guaranteed to land in the same ingress write.
+     *
+     * @return the future of each service's change
+     */
+    public synchronized Map<String, CompletableFuture<Void>> submitAll(Collection<String> serviceNames, boolean register) {
+        Map<String, CompletableFuture<Void>> futures = new LinkedHashMap<>();
+        serviceNames.forEach(serviceName -> futures.put(serviceName, submit(serviceName, register)));
+        return futures;
+    }
+
+    public void execute(Runnable task) {
+        executor.execute(() -> run(task));
+    }
+
+    public void schedule(Runnable task, long delay) {
+        executor.schedule(() -> run(task), delay, TimeUnit.MILLISECONDS);
+    }
+
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private void flush() {
+        Map<String, PendingChange> batch;
+        synchronized (this) {
+            batch = new LinkedHashMap<>(pending);
+            pending.clear();
+            scheduled = false;
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        Map<String, Boolean> changes = new LinkedHashMap<>();
+        batch.forEach((serviceName, change) -> changes.put(serviceName, change.register));
+        log.info("Writing {} ingress path change(s)", changes.size());
+        try {
+            Map<String, RuntimeException> failures = writer.apply(changes);
+            batch.forEach((serviceName, change) -> {
+                RuntimeException failure = failures.get(serviceName);
+                change.futures.forEach(f -> {
+                    if (failure == null) {
+                        f.complete(null);
+                    } else {
+                        f.completeExceptionally(failure);
+                    }
+                });
+            });
+        } catch (RuntimeException e) {
+            log.error("Failed to write ingress changes {}", changes.keySet(), e);
+            batch.values().forEach(change -> change.futures.forEach(f -> f.completeExceptionally(e)));
+        }
+    }
+
+    private static void run(Runnable task) {
+        try {
+            task.run();
+        } catch (RuntimeException e) {
+            log.error("Ingress task failed", e);
+        }
+    }
+
+    private static class PendingChange {
+        private boolean register;
+        private final List<CompletableFuture<Void>> futures = new ArrayList<>();
+    }
+}
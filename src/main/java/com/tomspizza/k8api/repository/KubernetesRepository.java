@@ -1,19 +1,48 @@
 package com.tomspizza.k8api.repository;
 
+import com.tomspizza.k8api.cache.DeploymentCache;
+import com.tomspizza.k8api.cache.IngressAddressCache;
+import com.tomspizza.k8api.cache.NamespaceCache;
+import com.tomspizza.k8api.cluster.ClusterRegistry;
+import com.tomspizza.k8api.metrics.KubernetesMetrics;
 import io.fabric8.kubernetes.api.model.*;
 import io.fabric8.kubernetes.api.model.apps.Deployment;
 import io.fabric8.kubernetes.api.model.apps.DeploymentBuilder;
+import io.fabric8.kubernetes.api.model.apps.DeploymentList;
 import io.fabric8.kubernetes.api.model.networking.v1.*;
 import io.fabric8.kubernetes.client.DefaultKubernetesClient;
+import io.fabric8.kubernetes.client.KubernetesClientException;
+import io.fabric8.kubernetes.client.Watch;
+import io.fabric8.kubernetes.client.Watcher;
+import io.fabric8.kubernetes.client.dsl.FilterWatchListDeletable;
+import io.fabric8.kubernetes.client.dsl.Resource;
+import io.fabric8.kubernetes.client.utils.Serialization;
 import lombok.RequiredArgsConstructor;
+import okhttp3.HttpUrl;
+import okhttp3.MediaType;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Repository;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
 
 @Slf4j
 @Repository
@@ -38,114 +67,419 @@ public class KubernetesRepository {
     @Value("${app.nginx.annotationValue}")
     private String nginxAnnotationValue;
 
+    @Value("${app.ingressShards}")
+    private int ingressShards;
+
+    @Value("${app.patch.enabled}")
+    private boolean patchEnabled;
+
+    @Value("${app.patch.serverSideApply}")
+    private boolean serverSideApplyEnabled;
+
+    @Value("${app.ingressBatch.window}")
+    private long ingressBatchWindow;
+
+    @Value("${app.ingressBatch.maxRetries}")
+    private int ingressMaxRetries;
+
+    @Value("${app.ingressBatch.retryInterval}")
+    private long ingressRetryInterval;
+
     private static final String APP_LABEL = "app";
+    private static final String SHARD_LABEL = "k8api/ingress-shard";
     private static final String DEFAULT_PROTOCOL = "TCP";
     private static final String PATH_TYPE = "Prefix";
-    private static final String DEFAULT_INGRESS_CON_NAME = "ingress-nginx-controller";
     private static final String SUFFIX_PATH = "(/|$)(.*)";
+    private static final String INGRESS_PATHS = "/spec/rules/0/http/paths";
+    private static final String FIELD_MANAGER = "k8api";
+    private static final MediaType APPLY_PATCH = MediaType.get("application/apply-patch+yaml");
+    private static final MediaType JSON_PATCH = MediaType.get("application/json-patch+json");
+    private static final MediaType MERGE_PATCH = MediaType.get("application/merge-patch+json");
+    private static final MediaType JSON = MediaType.get("application/json");
+    private static final String BACKGROUND_DELETE = "{\"kind\":\"DeleteOptions\",\"apiVersion\":\"v1\",\"propagationPolicy\":\"Background\"}";
+    private static final int HTTP_UNSUPPORTED_MEDIA_TYPE = 415;
+    private static final int POD_SELECTOR_LIMIT = 100;
+
+    private final ClusterRegistry clusterRegistry;
+
+    private final DeploymentCache deploymentCache;
+
+    private final IngressAddressCache ingressAddressCache;
+
+    private final NamespaceCache namespaceCache;
+
+    private final KubernetesMetrics kubernetesMetrics;
+
+    private final Map<String, Ingress> knownIngresses = new ConcurrentHashMap<>();
+
+    private final Map<String, IngressUpdateQueue> ingressUpdateQueues = new HashMap<>();
+
+    private final Map<String, Set<MediaType>> unsupportedPatchTypes = new ConcurrentHashMap<>();
+
+    private final Set<String> unsupportedCollectionDeletes = ConcurrentHashMap.newKeySet();
+
+    @PostConstruct
+    public void init() {
+        for (String cluster : clusterRegistry.getNames()) {
+            IngressUpdateQueue queue = new IngressUpdateQueue(ingressBatchWindow, changes -> writeIngress(cluster, changes));
+            ingressUpdateQueues.put(cluster, queue);
+            queue.execute(() -> reshardIngress(cluster));
+        }
+    }
 
-    private final DefaultKubernetesClient client;
+    @PreDestroy
+    public void destroy() {
+        ingressUpdateQueues.values().forEach(IngressUpdateQueue::shutdown);
+    }
+
+    private DefaultKubernetesClient client(String cluster) {
+        return clusterRegistry.getClient(cluster);
+    }
 
     private String buildFullPath(String serviceName) {
         return "/" + serviceName + SUFFIX_PATH;
     }
 
-    public String getIngressPublicUrl() {
-        List<Service> services = client.services().inAnyNamespace().list().getItems();
-        Optional<Service> optional = services.stream().filter(s -> DEFAULT_INGRESS_CON_NAME.equals(s.getMetadata().getName())).findAny();
-        if (!optional.isPresent()) {
-            return null;
+    public String getIngressPublicUrl(String cluster) {
+        return ingressAddressCache.getAddress(cluster);
+    }
+
+    public Namespace getOrCreateNamespace(String cluster, String name) {
+        return namespaceCache.get(cluster, name, () -> {
+            DefaultKubernetesClient client = client(cluster);
+            Namespace namespace = client.namespaces().withName(name).get();
+            if (namespace != null) {
+                return namespace;
+            }
+
+            log.info("Create a new namespace: {} in cluster [{}]", name, clusterRegistry.resolve(cluster));
+            Namespace newNamespace = new NamespaceBuilder().withNewMetadata().withName(name).endMetadata().build();
+            try {
+                return client.namespaces().create(newNamespace);
+            } catch (KubernetesClientException e) {
+                if (e.getCode() != HttpURLConnection.HTTP_CONFLICT) {
+                    throw e;
+                }
+                log.info("Namespace {} was created concurrently", name);
+                return newNamespace;
+            }
+        });
+    }
+
+    public List<Deployment> getDeployments(String cluster, String namespace, String labelSelector) {
+        if (clusterRegistry.isDefault(cluster) && deploymentCache.isFresh() && labelSelector == null) {
+            return namespace == null ? deploymentCache.list() : deploymentCache.listByNamespace(namespace);
+        }
+        if (clusterRegistry.isDefault(cluster) && deploymentCache.isEnabled()) {
+            log.info("Deployment cache is not synced or is stale ({} ms), listing deployments directly",
+                    deploymentCache.getStalenessMillis());
+        }
+        return listDeployments(cluster, namespace, labelSelector, null, null).getItems();
+    }
+
+    public DeploymentList listDeployments(String cluster, String namespace, String labelSelector, Integer limit, String continueToken) {
+        ListOptions options = new ListOptionsBuilder()
+                .withLabelSelector(labelSelector)
+                .withLimit(limit == null ? null : limit.longValue())
+                .withContinue(continueToken)
+                .build();
+        if (namespace == null) {
+            return client(cluster).apps().deployments().inAnyNamespace().list(options);
+        }
+        return client(cluster).apps().deployments().inNamespace(namespace).list(options);
+    }
+
+    public String getDeploymentsResourceVersion(String cluster) {
+        return listDeployments(cluster, null, null, 1, null).getMetadata().getResourceVersion();
+    }
+
+    public Watch watchDeployments(String cluster, String resourceVersion, Watcher<Deployment> watcher) {
+        return client(cluster).apps().deployments().inAnyNamespace().withResourceVersion(resourceVersion).watch(watcher);
+    }
+
+    /**
+     * Pods of the given apps in one namespace, or in all namespaces when it is null, in a single call. Up to
+     * {@value #POD_SELECTOR_LIMIT} apps are selected by name; for more, the selector would outgrow the URL and all
+     * pods carrying an app label are listed.
+     */
+    public List<Pod> listPods(String cluster, String namespace, Collection<String> apps) {
+        if (apps.isEmpty()) {
+            return Collections.emptyList();
+        }
+        FilterWatchListDeletable<Pod, PodList> pods = namespace == null ? client(cluster).pods().inAnyNamespace()
+                : client(cluster).pods().inNamespace(namespace);
+        if (apps.size() > POD_SELECTOR_LIMIT) {
+            return pods.withLabel(APP_LABEL).list().getItems();
+        }
+        return pods.withLabelIn(APP_LABEL, apps.toArray(new String[0])).list().getItems();
+    }
+
+    public String getPodsResourceVersion(String cluster) {
+        return client(cluster).pods().inAnyNamespace().withLabel(APP_LABEL)
+                .list(new ListOptionsBuilder().withLimit(1L).build())
+                .getMetadata().getResourceVersion();
+    }
+
+    public Watch watchPods(String cluster, String resourceVersion, Watcher<Pod> watcher) {
+        return client(cluster).pods().inAnyNamespace().withLabel(APP_LABEL).withResourceVersion(resourceVersion).watch(watcher);
+    }
+
+    public CompletableFuture<Void> register2Ingress(String cluster, String serviceName) {
+        log.info("Queue service [{}] for ingress", serviceName);
+        return ingressUpdateQueues.get(clusterRegistry.resolve(cluster)).register(serviceName);
+    }
+
+    public CompletableFuture<Void> unregister2Ingress(String cluster, String serviceName) {
+        log.info("Queue removal of service [{}] from ingress", serviceName);
+        return ingressUpdateQueues.get(clusterRegistry.resolve(cluster)).unregister(serviceName);
+    }
+
+    /**
+     * Queues the paths of several services so they are added in one ingress write per shard.
+     */
+    public Map<String, CompletableFuture<Void>> registerAll2Ingress(String cluster, Collection<String> serviceNames) {
+        log.info("Queue {} service(s) for ingress", serviceNames.size());
+        return ingressUpdateQueues.get(clusterRegistry.resolve(cluster)).submitAll(serviceNames, true);
+    }
+
+    public CompletableFuture<Void> unregisterAll2Ingress(String cluster, Collection<String> serviceNames) {
+        log.info("Queue removal of {} service(s) from ingress", serviceNames.size());
+        Map<String, CompletableFuture<Void>> futures = ingressUpdateQueues.get(clusterRegistry.resolve(cluster))
+                .submitAll(serviceNames, false);
+        return CompletableFuture.allOf(futures.values().toArray(new CompletableFuture[0]));
+    }
+
+    /**
+     * Writes each shard on its own, so one failing shard does not hold back the others.
+     *
+     * @return the failure of every service whose shard could not be written
+     */
+    private Map<String, RuntimeException> writeIngress(String cluster, Map<String, Boolean> changes) {
+        Map<String, Map<String, Boolean>> changesByShard = new TreeMap<>();
+        changes.forEach((serviceName, register) -> changesByShard
+                .computeIfAbsent(shardNameOf(serviceName), k -> new LinkedHashMap<>())
+                .put(serviceName, register));
+        Map<String, RuntimeException> failures = new HashMap<>();
+        changesByShard.forEach((name, shardChanges) -> {
+            try {
+                writeIngress(cluster, name, shardChanges);
+            } catch (RuntimeException e) {
+                log.error("Failed to write ingress [{}] in cluster [{}]", name, cluster, e);
+                shardChanges.keySet().forEach(serviceName -> failures.put(serviceName, e));
+            }
+        });
+        return failures;
+    }
+
+    private void writeIngress(String cluster, String name, Map<String, Boolean> changes) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                kubernetesMetrics.record("writeIngress", ingressNamespace, () -> {
+                    applyIngressChanges(cluster, name, changes);
+                    return null;
+                });
+                return;
+            } catch (KubernetesClientException e) {
+                knownIngresses.remove(cluster + "/" + name);
+                if (e.getCode() != HttpURLConnection.HTTP_CONFLICT || attempt >= ingressMaxRetries) {
+                    throw e;
+                }
+                log.info("Ingress [{}] was modified concurrently, retrying ({}/{})", name, attempt, ingressMaxRetries);
+            }
+        }
+    }
+
+    private void applyIngressChanges(String cluster, String name, Map<String, Boolean> changes) {
+        Resource<Ingress> resource = client(cluster).network().v1().ingresses()
+                .inNamespace(ingressNamespace)
+                .withName(name);
+        String key = cluster + "/" + name;
+        Ingress ingress = knownIngresses.get(key);
+        if (ingress == null) {
+            ingress = resource.get();
+        }
+        if (ingress == null) {
+            List<HTTPIngressPath> paths = changes.entrySet().stream()
+                    .filter(Map.Entry::getValue)
+                    .map(e -> buildIngressPath(e.getKey()))
+                    .collect(Collectors.toList());
+            if (!paths.isEmpty()) {
+                log.info("Creating new ingress [{}]", name);
+                knownIngresses.put(key, createIngress(cluster, name, paths));
+            }
+            return;
+        }
+
+        List<HTTPIngressPath> paths = ingress.getSpec().getRules().get(0).getHttp().getPaths();
+        List<Integer> removed = new ArrayList<>();
+        List<HTTPIngressPath> added = new ArrayList<>();
+        for (int i = 0; i < paths.size(); i++) {
+            String serviceName = serviceNameOf(paths.get(i));
+            if (serviceName != null && Boolean.FALSE.equals(changes.get(serviceName))) {
+                removed.add(i);
+            }
+        }
+        changes.forEach((serviceName, register) -> {
+            String fullPath = buildFullPath(serviceName);
+            if (register && paths.stream().noneMatch(p -> fullPath.equals(p.getPath()))) {
+                added.add(buildIngressPath(serviceName));
+            }
+        });
+        if (removed.isEmpty() && added.isEmpty()) {
+            return;
+        }
+
+        if (removed.size() == paths.size() && added.isEmpty()) {
+            log.info("Empty path for ingress [{}], delete ingress", name);
+            knownIngresses.remove(key);
+            deleteIngress(cluster, name, ingress.getMetadata().getResourceVersion());
+            return;
         }
 
-        Service service = optional.get();
-        return service.getStatus().getLoadBalancer().getIngress().get(0).getIp();
+        if (canPatch(cluster, JSON_PATCH)) {
+            Ingress patched = sendPatch(cluster, ingressPath(name), JSON_PATCH, buildPathPatch(ingress.getMetadata().getResourceVersion(), removed, added), Ingress.class, false);
+            if (patched != null) {
+                knownIngresses.put(key, patched);
+                return;
+            }
+        }
+
+        for (int i = removed.size() - 1; i >= 0; i--) {
+            paths.remove((int) removed.get(i));
+        }
+        paths.addAll(added);
+        knownIngresses.put(key, resource.lockResourceVersion(ingress.getMetadata().getResourceVersion()).replace(ingress));
     }
 
-    public Namespace getOrCreateNamespace(String name) {
-        List<Namespace> namespaces = client.namespaces().list().getItems();
-        Optional<Namespace> optional = namespaces.stream().filter(n -> n.getMetadata().getName().equals(name)).findAny();
-        if (optional.isPresent()) {
-            return optional.get();
+    /**
+     * Deletes an emptied ingress only while it is at the version the removal was computed against. A path added
+     * meanwhile yields 409, and the batch is retried on a fresh read like a conflicting patch.
+     */
+    private void deleteIngress(String cluster, String name, String resourceVersion) {
+        DeleteOptions options = new DeleteOptionsBuilder()
+                .withNewPreconditions().withResourceVersion(resourceVersion).endPreconditions()
+                .build();
+        DefaultKubernetesClient client = client(cluster);
+        Request request = new Request.Builder()
+                .url(HttpUrl.get(client.getMasterUrl()).newBuilder().addPathSegments(ingressPath(name)).build())
+                .delete(RequestBody.create(JSON, Serialization.asJson(options)))
+                .build();
+        try (Response response = client.getHttpClient().newCall(request).execute()) {
+            if (response.code() == HttpURLConnection.HTTP_NOT_FOUND) {
+                return;
+            }
+            if (!response.isSuccessful()) {
+                throw new KubernetesClientException(response.body() == null ? null : response.body().string(),
+                        response.code(), null);
+            }
+        } catch (IOException e) {
+            throw new KubernetesClientException("Failed to delete ingress " + name, e);
         }
+    }
+
+    private String ingressPath(String name) {
+        return "apis/networking.k8s.io/v1/namespaces/" + ingressNamespace + "/ingresses/" + name;
+    }
 
-        log.info("Create a new namespace: {}", name);
-        Namespace newNamespace = new NamespaceBuilder().withNewMetadata().withName(name).endMetadata().build();
-        client.namespaces().createOrReplace(newNamespace);
-        return newNamespace;
+    private String buildPathPatch(String resourceVersion, List<Integer> removed, List<HTTPIngressPath> added) {
+        List<Map<String, Object>> operations = new ArrayList<>();
+        operations.add(patchOperation("replace", "/metadata/resourceVersion", resourceVersion));
+        for (int i = removed.size() - 1; i >= 0; i--) {
+            operations.add(patchOperation("remove", INGRESS_PATHS + "/" + removed.get(i), null));
+        }
+        for (HTTPIngressPath path : added) {
+            operations.add(patchOperation("add", INGRESS_PATHS + "/-", path));
+        }
+        return Serialization.asJson(operations);
     }
 
-    public List<Deployment> getDeployments() {
-        return client.apps().deployments().inAnyNamespace().list().getItems();
+    private Map<String, Object> patchOperation(String op, String path, Object value) {
+        Map<String, Object> operation = new LinkedHashMap<>();
+        operation.put("op", op);
+        operation.put("path", path);
+        if (value != null) {
+            operation.put("value", value);
+        }
+        return operation;
     }
 
-    public void register2Ingress(String serviceName) {
-        IngressList ingressList = getIngressList();
-        List<Ingress> ingresses = ingressList.getItems();
-        if (ingresses == null || ingresses.isEmpty()) {
-            log.info("Creating new ingress");
-            createIngress(serviceName);
-        } else {
-            log.info("Found {} ingress", ingresses.size());
-            log.info("Adding a new service to ingress");
-            addService2Ingress(ingresses.get(0), serviceName);
+    /**
+     * Moves paths found on the wrong shard. A path is removed from its old shard only once it has been added
+     * to the new one; on failure the whole pass is retried after app.ingressBatch.retryInterval ms.
+     */
+    private void reshardIngress(String cluster) {
+        try {
+            moveIngressPaths(cluster);
+        } catch (RuntimeException e) {
+            log.warn("Failed to reshard ingress in cluster [{}], retrying in {} ms: {}", cluster, ingressRetryInterval,
+                    e.getMessage());
+            ingressUpdateQueues.get(cluster).schedule(() -> reshardIngress(cluster), ingressRetryInterval);
         }
     }
 
-    public void unregister2Ingress(String serviceName) {
-        log.info("Remove service [{}] out of ingress", serviceName);
-        IngressList ingressList = getIngressList();
-        List<Ingress> ingresses = ingressList.getItems();
-        if (ingresses != null && !ingresses.isEmpty()) {
-            Ingress ingress = ingresses.get(0);
-            List<IngressRule> rules = ingress.getSpec().getRules();
-            List<HTTPIngressPath> paths = rules.get(0).getHttp().getPaths();
-            paths.removeIf(p -> p.getPath().equals(buildFullPath(serviceName)));
-            if (paths.isEmpty()) {
-                log.info("Empty path for ingress, delete ingress");
-                client.network().v1().ingresses()
-                        .inNamespace(ingressNamespace)
-                        .delete(ingress);
-            } else {
-                client.network().v1().ingresses()
-                        .inNamespace(ingressNamespace)
-                        .createOrReplace(ingress);
+    private void moveIngressPaths(String cluster) {
+        Map<String, Map<String, Boolean>> removals = new TreeMap<>();
+        Map<String, Boolean> additions = new LinkedHashMap<>();
+        for (Ingress ingress : getIngressList(cluster).getItems()) {
+            String name = ingress.getMetadata().getName();
+            for (HTTPIngressPath path : ingress.getSpec().getRules().get(0).getHttp().getPaths()) {
+                String serviceName = serviceNameOf(path);
+                if (serviceName != null && !name.equals(shardNameOf(serviceName))) {
+                    additions.put(serviceName, true);
+                    removals.computeIfAbsent(name, k -> new LinkedHashMap<>()).put(serviceName, false);
+                }
             }
         }
+        if (additions.isEmpty()) {
+            return;
+        }
+
+        log.info("Moving {} ingress path(s) to {} shard(s) in cluster [{}]", additions.size(), ingressShards, cluster);
+        Map<String, RuntimeException> failures = writeIngress(cluster, additions);
+        removals.forEach((name, changes) -> {
+            changes.keySet().removeAll(failures.keySet());
+            if (!changes.isEmpty()) {
+                writeIngress(cluster, name, changes);
+            }
+        });
+        if (!failures.isEmpty()) {
+            throw failures.values().iterator().next();
+        }
+    }
+
+    /**
+     * The service a path routes to, or null for paths this API does not manage (resource backends, paths
+     * added by hand without a service).
+     */
+    private static String serviceNameOf(HTTPIngressPath path) {
+        IngressBackend backend = path.getBackend();
+        return backend == null || backend.getService() == null ? null : backend.getService().getName();
     }
 
-    private Ingress createIngress(String serviceName) {
+    private String shardNameOf(String serviceName) {
+        return IngressSharding.shardName(ingressName, IngressSharding.shardOf(serviceName, ingressShards));
+    }
+
+    private Ingress createIngress(String cluster, String name, List<HTTPIngressPath> paths) {
         Ingress ingress = new IngressBuilder()
                 .withNewMetadata()
-                .withName(ingressName)
+                .withName(name)
                 .addToLabels(APP_LABEL, ingressName)
+                .addToLabels(SHARD_LABEL, name)
                 .addToAnnotations(nginxAnnotationKey, nginxAnnotationValue)
                 .endMetadata()
                 .withNewSpec()
                 .addNewRule()
                 .withNewHttp()
-                .addNewPath()
-                .withPath(buildFullPath(serviceName))
-                .withPathType(PATH_TYPE)
-                .withNewBackend()
-                .withNewService()
-                .withName(serviceName)
-                .withNewPort()
-                .withNumber(servicePort)
-                .endPort()
-                .endService()
-                .endBackend()
-                .endPath()
+                .withPaths(paths)
                 .endHttp()
                 .endRule()
                 .endSpec()
                 .build();
-        return client.network().v1().ingresses().inNamespace(ingressNamespace).createOrReplace(ingress);
+        return client(cluster).network().v1().ingresses().inNamespace(ingressNamespace).create(ingress);
     }
 
-    private Ingress addService2Ingress(Ingress ingress, String serviceName) {
-        List<IngressRule> rules = ingress.getSpec().getRules();
-        List<HTTPIngressPath> paths = rules.get(0).getHttp().getPaths();
-
+    private HTTPIngressPath buildIngressPath(String serviceName) {
         ServiceBackendPort serviceBackendPort = new ServiceBackendPort();
         serviceBackendPort.setNumber(servicePort);
 
@@ -160,28 +494,27 @@ public class KubernetesRepository {
         newPath.setPath(buildFullPath(serviceName));
         newPath.setPathType(PATH_TYPE);
         newPath.setBackend(ingressBackend);
-        paths.add(newPath);
-
-        return client.network().v1().ingresses()
-                .inNamespace(ingressNamespace)
-                .createOrReplace(ingress);
+        return newPath;
     }
 
-    public IngressList getIngressList() {
-        return client.network().v1().ingresses()
+    public IngressList getIngressList(String cluster) {
+        return client(cluster).network().v1().ingresses()
                 .inNamespace(ingressNamespace)
                 .withLabel(APP_LABEL, ingressName)
                 .list();
     }
 
-    public Deployment deployDeployment(String namespace, String serviceName, String image) {
+    /**
+     * The applied object leaves out {@code spec.replicas}: a forced apply would take the field over and reset a
+     * scaled deployment to one replica on every redeploy. New deployments get the API server default of one.
+     */
+    public Deployment deployDeployment(String cluster, String namespace, String serviceName, String image) {
         Deployment deployment = new DeploymentBuilder()
                 .withNewMetadata()
                 .withName(serviceName)
                 .addToLabels(APP_LABEL, serviceName)
                 .endMetadata()
                 .withNewSpec()
-                .withReplicas(1)
                 .withNewTemplate()
                 .withNewMetadata()
                 .addToLabels(APP_LABEL, serviceName)
@@ -202,10 +535,18 @@ public class KubernetesRepository {
                 .endSelector()
                 .endSpec()
                 .build();
-        return client.apps().deployments().inNamespace(namespace).create(deployment);
+        if (canPatch(cluster, APPLY_PATCH)) {
+            Deployment applied = sendPatch(cluster, deploymentPath(namespace, serviceName), APPLY_PATCH,
+                    Serialization.asJson(deployment), Deployment.class, true);
+            if (applied != null) {
+                return applied;
+            }
+        }
+        deployment.getSpec().setReplicas(1);
+        return client(cluster).apps().deployments().inNamespace(namespace).create(deployment);
     }
 
-    public void deployService(String namespace, String serviceName) {
+    public void deployService(String cluster, String namespace, String serviceName) {
         ServicePort servicePort = new ServicePort();
         servicePort.setProtocol(DEFAULT_PROTOCOL);
         servicePort.setPort(this.servicePort);
@@ -224,26 +565,136 @@ public class KubernetesRepository {
                 .withPorts(servicePort)
                 .endSpec()
                 .build();
-        client.services().inNamespace(namespace).create(service);
+        if (canPatch(cluster, APPLY_PATCH) && sendPatch(cluster, "api/v1/namespaces/" + namespace + "/services/" + serviceName, APPLY_PATCH,
+                Serialization.asJson(service), Service.class, true) != null) {
+            return;
+        }
+        client(cluster).services().inNamespace(namespace).create(service);
+    }
+
+    private String deploymentPath(String namespace, String serviceName) {
+        return "apis/apps/v1/namespaces/" + namespace + "/deployments/" + serviceName;
     }
 
-    public Deployment scalePod(String namespace, String serviceName, int numberOfReplicas) {
-        return client.apps().deployments()
+    private boolean canPatch(String cluster, MediaType mediaType) {
+        if (unsupportedPatchTypes.getOrDefault(clusterRegistry.resolve(cluster), Collections.emptySet()).contains(mediaType)) {
+            return false;
+        }
+        return mediaType == APPLY_PATCH ? serverSideApplyEnabled : patchEnabled;
+    }
+
+    private <T extends HasMetadata> T sendPatch(String cluster, String path, MediaType mediaType, String body, Class<T> type, boolean apply) {
+        DefaultKubernetesClient client = client(cluster);
+        HttpUrl.Builder url = HttpUrl.get(client.getMasterUrl()).newBuilder().addPathSegments(path);
+        if (apply) {
+            url.addQueryParameter("fieldManager", FIELD_MANAGER).addQueryParameter("force", "true");
+        }
+        Request request = new Request.Builder()
+                .url(url.build())
+                .patch(RequestBody.create(mediaType, body))
+                .build();
+        try (Response response = client.getHttpClient().newCall(request).execute()) {
+            if (response.code() == HTTP_UNSUPPORTED_MEDIA_TYPE) {
+                log.warn("API server does not support {}, falling back to {}", mediaType, apply ? "create" : "replace");
+                unsupportedPatchTypes.computeIfAbsent(clusterRegistry.resolve(cluster), k -> ConcurrentHashMap.newKeySet())
+                        .add(mediaType);
+                return null;
+            }
+            if (apply && response.code() == HttpURLConnection.HTTP_NOT_FOUND) {
+                log.info("Server-side apply of {} returned not found, falling back to create", path);
+                return null;
+            }
+            String responseBody = response.body() == null ? null : response.body().string();
+            if (!response.isSuccessful()) {
+                throw new KubernetesClientException(responseBody, response.code(), null);
+            }
+            return Serialization.unmarshal(responseBody, type);
+        } catch (IOException e) {
+            throw new KubernetesClientException("Failed to patch " + path, e);
+        }
+    }
+
+    public Deployment scalePod(String cluster, String namespace, String serviceName, int numberOfReplicas) {
+        if (canPatch(cluster, MERGE_PATCH)) {
+            Deployment patched = sendPatch(cluster, deploymentPath(namespace, serviceName), MERGE_PATCH,
+                    "{\"spec\":{\"replicas\":" + numberOfReplicas + "}}", Deployment.class, false);
+            if (patched != null) {
+                return patched;
+            }
+        }
+        return client(cluster).apps().deployments()
                 .inNamespace(namespace)
                 .withName(serviceName).edit(d -> new DeploymentBuilder(d).editSpec()
                         .withReplicas(numberOfReplicas)
                         .endSpec().build());
     }
 
-    public Boolean deleteDeployment(String namespace, String serviceName) {
-        return client.apps().deployments()
+    public Boolean deleteDeployment(String cluster, String namespace, String serviceName) {
+        return client(cluster).apps().deployments()
                 .inNamespace(namespace)
-                .withName(serviceName).delete();
+                .withName(serviceName)
+                .withPropagationPolicy(DeletionPropagation.BACKGROUND)
+                .delete();
     }
 
-    public Boolean deleteService(String namespace, String serviceName) {
-        return client.services()
+    public Boolean deleteService(String cluster, String namespace, String serviceName) {
+        return client(cluster).services()
                 .inNamespace(namespace)
-                .withName(serviceName).delete();
+                .withName(serviceName)
+                .withPropagationPolicy(DeletionPropagation.BACKGROUND)
+                .delete();
+    }
+
+    public List<String> getServiceNames(String cluster, String namespace, String labelSelector) {
+        ListOptions options = new ListOptionsBuilder().withLabelSelector(labelSelector).build();
+        return client(cluster).services().inNamespace(namespace).list(options).getItems().stream()
+                .map(service -> service.getMetadata().getName())
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Deletes all matching deployments with one deletecollection call. The client library would list and
+     * delete them one by one instead.
+     */
+    public void deleteDeployments(String cluster, String namespace, String labelSelector, Collection<String> names) {
+        if (!deleteCollection(cluster, "apis/apps/v1/namespaces/" + namespace + "/deployments", labelSelector)) {
+            names.forEach(name -> deleteDeployment(cluster, namespace, name));
+        }
+    }
+
+    public void deleteServices(String cluster, String namespace, String labelSelector, Collection<String> names) {
+        if (!deleteCollection(cluster, "api/v1/namespaces/" + namespace + "/services", labelSelector)) {
+            names.forEach(name -> deleteService(cluster, namespace, name));
+        }
+    }
+
+    private boolean deleteCollection(String cluster, String path, String labelSelector) {
+        String name = clusterRegistry.resolve(cluster);
+        if (unsupportedCollectionDeletes.contains(name)) {
+            return false;
+        }
+        DefaultKubernetesClient client = client(cluster);
+        HttpUrl url = HttpUrl.get(client.getMasterUrl()).newBuilder()
+                .addPathSegments(path)
+                .addQueryParameter("labelSelector", labelSelector)
+                .build();
+        Request request = new Request.Builder()
+                .url(url)
+                .delete(RequestBody.create(JSON, BACKGROUND_DELETE))
+                .build();
+        try (Response response = client.getHttpClient().newCall(request).execute()) {
+            if (response.code() == HttpURLConnection.HTTP_BAD_METHOD || response.code() == HttpURLConnection.HTTP_NOT_FOUND) {
+                log.warn("API server of cluster [{}] does not support deletecollection, deleting one by one", name);
+                unsupportedCollectionDeletes.add(name);
+                return false;
+            }
+            if (!response.isSuccessful()) {
+                throw new KubernetesClientException(response.body() == null ? null : response.body().string(),
+                        response.code(), null);
+            }
+            return true;
+        } catch (IOException e) {
+            throw new KubernetesClientException("Failed to delete " + path, e);
+        }
     }
 }
@@ -0,0 +1,101 @@
+package com.tomspizza.k8api.service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Collects when each phase of a deploy finished. API calls run one after another, while the rollout
+ * phases are reported by the watch thread and run in parallel with the service and ingress steps, so
+ * every phase is measured from the phase it depends on rather than from the one reported before it.
+ */
+public class DeployPhases {
+
+    public static final String NAMESPACE = "namespace";
+    public static final String DEPLOYMENT = "deployment";
+    public static final String SERVICE = "service";
+    public static final String INGRESS = "ingress";
+    public static final String POD_SCHEDULED = "podScheduled";
+    public static final String IMAGE_PULLED = "imagePulled";
+    public static final String READY = "ready";
+
+    private static final String[][] ORDER = {
+            {NAMESPACE},
+            {DEPLOYMENT, NAMESPACE},
+            {SERVICE, DEPLOYMENT},
+            {INGRESS, SERVICE},
+            {POD_SCHEDULED, DEPLOYMENT},
+            {IMAGE_PULLED, POD_SCHEDULED},
+            {READY, IMAGE_PULLED}
+    };
+
+    private final long start;
+
+    private final Consumer<String> progress;
+
+    private final Map<String, Long> marks = new ConcurrentHashMap<>();
+
+    public DeployPhases(Consumer<String> progress) {
+        this(System.nanoTime(), progress);
+    }
+
+    DeployPhases(long start, Consumer<String> progress) {
+        this.start = start;
+        this.progress = progress;
+    }
+
+    public void mark(String phase) {
+        mark(phase, System.nanoTime());
+    }
+
+    void mark(String phase, long nanos) {
+        if (marks.putIfAbsent(phase, nanos) == null) {
+            progress.accept(phase);
+        }
+    }
+
+    public boolean isMarked(String phase) {
+        return marks.containsKey(phase);
+    }
+
+    /**
+     * Duration of every finished phase in nanoseconds, in deploy order. A phase whose predecessor was
+     * never seen (e.g. the pod was scheduled before the watch caught up) is measured from the one before.
+     */
+    public Map<String, Long> getDurations() {
+        Map<String, Long> durations = new LinkedHashMap<>();
+        for (String[] phase : ORDER) {
+            Long end = marks.get(phase[0]);
+            if (end != null) {
+                durations.put(phase[0], Math.max(0L, end - startOf(phase)));
+            }
+        }
+        return durations;
+    }
+
+    public long getTotal() {
+        return marks.values().stream().mapToLong(Long::longValue).max().orElse(start) - start;
+    }
+
+    private long startOf(String[] phase) {
+        String previous = phase.length > 1 ? phase[1] : null;
+        while (previous != null) {
+            Long mark = marks.get(previous);
+            if (mark != null) {
+                return mark;
+            }
+            previous = previousOf(previous);
+        }
+        return start;
+    }
+
+    private static String previousOf(String name) {
+        for (String[] phase : ORDER) {
+            if (phase[0].equals(name)) {
+                return phase.length > 1 ? phase[1] : null;
+            }
+        }
+        return null;
+    }
+}
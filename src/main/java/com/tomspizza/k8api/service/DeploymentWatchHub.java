@@ -0,0 +1,307 @@
+package com.tomspizza.k8api.service;
+
+import com.tomspizza.k8api.cache.DeploymentProjectionCache;
+import com.tomspizza.k8api.cluster.ClusterRegistry;
+import com.tomspizza.k8api.dto.DeploymentDto;
+import com.tomspizza.k8api.dto.DeploymentEventDto;
+import com.tomspizza.k8api.repository.KubernetesRepository;
+import io.fabric8.kubernetes.api.model.apps.Deployment;
+import io.fabric8.kubernetes.api.model.apps.DeploymentList;
+import io.fabric8.kubernetes.client.Watch;
+import io.fabric8.kubernetes.client.Watcher;
+import io.fabric8.kubernetes.client.WatcherException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+@Slf4j
+@Component
+public class DeploymentWatchHub {
+
+    @Value("${app.watch.bufferSize}")
+    private int bufferSize;
+
+    @Value("${app.watch.historySize}")
+    private int historySize;
+
+    @Value("${app.watch.sseTimeout}")
+    private long sseTimeout;
+
+    @Value("${app.watch.retryInterval}")
+    private long retryInterval;
+
+    private final KubernetesRepository kubernetesRepository;
+
+    private final KubernetesService kubernetesService;
+
+    private final DeploymentProjectionCache projectionCache;
+
+    private final ClusterRegistry clusterRegistry;
+
+    private final ScheduledExecutorService executor;
+
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+
+    private final Map<String, Integer> replicas = new ConcurrentHashMap<>();
+
+    private final Deque<DeploymentEventDto> history = new ArrayDeque<>();
+
+    private volatile String resourceVersion;
+
+    private Watch watch;
+
+    public DeploymentWatchHub(KubernetesRepository kubernetesRepository, KubernetesService kubernetesService,
+                              DeploymentProjectionCache projectionCache, ClusterRegistry clusterRegistry,
+                              @Value("${app.watch.dispatchThreads}") int dispatchThreads) {
+        this.kubernetesRepository = kubernetesRepository;
+        this.kubernetesService = kubernetesService;
+        this.projectionCache = projectionCache;
+        this.clusterRegistry = clusterRegistry;
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("watch-");
+        threadFactory.setDaemon(true);
+        this.executor = Executors.newScheduledThreadPool(dispatchThreads, threadFactory);
+    }
+
+    public SseEmitter subscribe(String namespace, String fromResourceVersion) {
+        return subscribe(new SseEmitter(sseTimeout), namespace, fromResourceVersion);
+    }
+
+    SseEmitter subscribe(SseEmitter emitter, String namespace, String fromResourceVersion) {
+        ensureWatching();
+
+        Subscriber subscriber = new Subscriber(namespace, emitter, bufferSize);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(e -> subscribers.remove(subscriber));
+
+        synchronized (history) {
+            if (fromResourceVersion != null) {
+                replay(subscriber, fromResourceVersion);
+            }
+            subscribers.add(subscriber);
+        }
+        schedule(subscriber);
+        return emitter;
+    }
+
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    @PreDestroy
+    public void stop() {
+        synchronized (this) {
+            if (watch != null) {
+                watch.close();
+            }
+        }
+        executor.shutdownNow();
+        subscribers.forEach(s -> s.emitter.complete());
+    }
+
+    private synchronized void ensureWatching() {
+        if (watch != null) {
+            return;
+        }
+        // the replica counts are seeded from a full list, so the first scale of a deployment is reported too
+        DeploymentList deployments = kubernetesRepository.listDeployments(null, null, null, null, null);
+        replicas.clear();
+        deployments.getItems().forEach(d -> replicas.put(keyOf(d), specReplicas(d)));
+        resourceVersion = deployments.getMetadata().getResourceVersion();
+        log.info("Start watching {} deployments from resourceVersion {}", replicas.size(), resourceVersion);
+        watch = kubernetesRepository.watchDeployments(null, resourceVersion, new Watcher<Deployment>() {
+            @Override
+            public void eventReceived(Action action, Deployment deployment) {
+                onEvent(action, deployment);
+            }
+
+            @Override
+            public void onClose(WatcherException e) {
+                log.warn("Deployment watch closed, restarting in {} ms: {}", retryInterval, e.getMessage());
+                restart();
+            }
+        });
+    }
+
+    private void restart() {
+        synchronized (this) {
+            watch = null;
+        }
+        executor.schedule(() -> {
+            try {
+                ensureWatching();
+                publish(new DeploymentEventDto(DeploymentEventDto.Type.RESYNC, resourceVersion));
+            } catch (RuntimeException e) {
+                log.warn("Failed to restart deployment watch: {}", e.getMessage());
+                restart();
+            }
+        }, retryInterval, TimeUnit.MILLISECONDS);
+    }
+
+    private void onEvent(Watcher.Action action, Deployment deployment) {
+        String key = keyOf(deployment);
+        DeploymentEventDto event;
+        switch (action) {
+            case ADDED:
+                event = new DeploymentEventDto(DeploymentEventDto.Type.ADDED, deployment.getMetadata().getResourceVersion());
+                break;
+            case MODIFIED:
+                event = new DeploymentEventDto(DeploymentEventDto.Type.MODIFIED, deployment.getMetadata().getResourceVersion());
+                break;
+            case DELETED:
+                event = new DeploymentEventDto(DeploymentEventDto.Type.DELETED, deployment.getMetadata().getResourceVersion());
+                break;
+            default:
+                return;
+        }
+
+        DeploymentDto dto;
+        if (action == Watcher.Action.DELETED) {
+            projectionCache.evict(deployment);
+            dto = new DeploymentDto(deployment, kubernetesService.getServiceUri(null));
+            dto.setCluster(clusterRegistry.getDefaultName());
+        } else {
+            dto = projectionCache.get(deployment, clusterRegistry.getDefaultName(), kubernetesService.getServiceUri(null));
+        }
+        event.setDeployment(dto);
+        int desired = specReplicas(deployment);
+        Integer previous = action == Watcher.Action.DELETED ? replicas.remove(key) : replicas.put(key, desired);
+        if (action == Watcher.Action.MODIFIED && previous != null && previous != desired) {
+            event.setType(DeploymentEventDto.Type.SCALED);
+            event.setPreviousReplicas(previous);
+        }
+        resourceVersion = event.getResourceVersion();
+        publish(event);
+    }
+
+    private static String keyOf(Deployment deployment) {
+        return deployment.getMetadata().getNamespace() + "/" + deployment.getMetadata().getName();
+    }
+
+    /**
+     * The desired replica count. The status count changes during every rollout, so it would report scales
+     * that never happened.
+     */
+    private static int specReplicas(Deployment deployment) {
+        Integer replicas = deployment.getSpec() == null ? null : deployment.getSpec().getReplicas();
+        return replicas == null ? 1 : replicas;
+    }
+
+    private void publish(DeploymentEventDto event) {
+        synchronized (history) {
+            if (event.getType() == DeploymentEventDto.Type.RESYNC) {
+                history.clear();
+            } else {
+                history.addLast(event);
+                if (history.size() > historySize) {
+                    history.removeFirst();
+                }
+            }
+            for (Subscriber subscriber : subscribers) {
+                if (subscriber.offer(event)) {
+                    schedule(subscriber);
+                }
+            }
+        }
+    }
+
+    private void replay(Subscriber subscriber, String fromResourceVersion) {
+        boolean found = false;
+        for (Iterator<DeploymentEventDto> it = history.iterator(); it.hasNext(); ) {
+            DeploymentEventDto event = it.next();
+            if (found) {
+                subscriber.offer(event);
+            } else if (fromResourceVersion.equals(event.getResourceVersion())) {
+                found = true;
+            }
+        }
+        if (!found && !fromResourceVersion.equals(resourceVersion)) {
+            subscriber.offer(new DeploymentEventDto(DeploymentEventDto.Type.RESYNC, resourceVersion));
+        }
+    }
+
+    private void schedule(Subscriber subscriber) {
+        if (subscriber.draining.compareAndSet(false, true)) {
+            try {
+                executor.execute(() -> drain(subscriber));
+            } catch (RejectedExecutionException e) {
+                // events still arriving after stop()
+                subscriber.draining.set(false);
+            }
+        }
+    }
+
+    private void drain(Subscriber subscriber) {
+        try {
+            DeploymentEventDto event;
+            while ((event = subscriber.next(resourceVersion)) != null) {
+                subscriber.emitter.send(SseEmitter.event()
+                        .id(event.getResourceVersion())
+                        .name(event.getType().name())
+                        .data(event));
+            }
+        } catch (IOException | IllegalStateException e) {
+            log.info("Deployment watch subscriber disconnected: {}", e.getMessage());
+            subscribers.remove(subscriber);
+            subscriber.emitter.completeWithError(e);
+            return;
+        } finally {
+            subscriber.draining.set(false);
+        }
+        if (!subscriber.queue.isEmpty()) {
+            schedule(subscriber);
+        }
+    }
+
+    private static class Subscriber {
+        private final String namespace;
+        private final SseEmitter emitter;
+        private final BlockingQueue<DeploymentEventDto> queue;
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private volatile boolean overflowed;
+
+        private Subscriber(String namespace, SseEmitter emitter, int bufferSize) {
+            this.namespace = namespace;
+            this.emitter = emitter;
+            this.queue = new ArrayBlockingQueue<>(bufferSize);
+        }
+
+        private boolean offer(DeploymentEventDto event) {
+            if (namespace != null && event.getDeployment() != null
+                    && !namespace.equals(event.getDeployment().getNamespace())) {
+                return false;
+            }
+            if (!queue.offer(event)) {
+                queue.clear();
+                overflowed = true;
+            }
+            return true;
+        }
+
+        private DeploymentEventDto next(String resourceVersion) {
+            if (overflowed) {
+                overflowed = false;
+                return new DeploymentEventDto(DeploymentEventDto.Type.RESYNC, resourceVersion);
+            }
+            return queue.poll();
+        }
+    }
+}
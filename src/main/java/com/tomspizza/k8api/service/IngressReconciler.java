@@ -0,0 +1,252 @@
+package com.tomspizza.k8api.service;
+
+import com.tomspizza.k8api.cache.DeploymentCache;
+import com.tomspizza.k8api.cache.InformerStarter;
+import com.tomspizza.k8api.cluster.ClusterRegistry;
+import com.tomspizza.k8api.repository.KubernetesRepository;
+import io.fabric8.kubernetes.api.model.HasMetadata;
+import io.fabric8.kubernetes.api.model.networking.v1.HTTPIngressPath;
+import io.fabric8.kubernetes.api.model.networking.v1.HTTPIngressRuleValue;
+import io.fabric8.kubernetes.api.model.networking.v1.Ingress;
+import io.fabric8.kubernetes.api.model.networking.v1.IngressRule;
+import io.fabric8.kubernetes.client.DefaultKubernetesClient;
+import io.fabric8.kubernetes.client.informers.ResourceEventHandler;
+import io.fabric8.kubernetes.client.informers.SharedIndexInformer;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BiConsumer;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Repairs ingress paths left behind by deploys and deletes that failed halfway. Informers on managed
+ * Services, Deployments and Ingresses keep an {@link IngressRouteIndex} per cluster; a path is wanted when a
+ * service and a deployment of that name exist in the same namespace. Only names touched by an event are
+ * compared, and repairs go through the batched ingress queue of the repository. Deployments of the default
+ * cluster come from the {@link DeploymentCache} informer when it is enabled.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class IngressReconciler {
+
+    private static final String APP_LABEL = "app";
+
+    @Value("${app.reconciler.enabled}")
+    private boolean enabled;
+
+    @Value("${app.reconciler.dryRun}")
+    private boolean dryRun;
+
+    @Value("${app.reconciler.delay}")
+    private long delay;
+
+    @Value("${app.ingressNamespace}")
+    private String ingressNamespace;
+
+    @Value("${app.ingressName}")
+    private String ingressName;
+
+    private final ClusterRegistry clusterRegistry;
+
+    private final InformerStarter informerStarter;
+
+    private final DeploymentCache deploymentCache;
+
+    private final KubernetesRepository kubernetesRepository;
+
+    private final MeterRegistry meterRegistry;
+
+    private final Map<String, ClusterState> clusters = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            log.info("Ingress reconciler is disabled");
+            return;
+        }
+        for (String cluster : clusterRegistry.getNames()) {
+            ClusterState state = new ClusterState();
+            clusters.put(cluster, state);
+            DefaultKubernetesClient client = clusterRegistry.getClient(cluster);
+            log.info("Starting ingress reconciler of cluster [{}]{}", cluster, dryRun ? " in dry-run mode" : "");
+            informerStarter.start("reconciler service", () -> client.services().inAnyNamespace().withLabel(APP_LABEL)
+                    .inform(handler(state.index::updateService), 0), state.informers::add);
+            if (clusterRegistry.isDefault(cluster) && deploymentCache.isEnabled()) {
+                deploymentCache.addEventHandler(handler(state.index::updateDeployment));
+                state.informerCount = 2;
+                state.deploymentsSynced = deploymentCache::isReady;
+            } else {
+                informerStarter.start("reconciler deployment", () -> client.apps().deployments().inAnyNamespace()
+                        .withLabel(APP_LABEL)
+                        .inform(handler(state.index::updateDeployment), 0), state.informers::add);
+            }
+            informerStarter.start("reconciler ingress", () -> client.network().v1().ingresses()
+                    .inNamespace(ingressNamespace)
+                    .withLabel(APP_LABEL, ingressName)
+                    .inform(ingressHandler(state.index), 0), state.informers::add);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        clusters.values().forEach(state -> state.informers.forEach(SharedIndexInformer::stop));
+    }
+
+    @Scheduled(fixedDelayString = "${app.reconciler.interval}")
+    public void reconcile() {
+        long now = System.currentTimeMillis();
+        clusters.forEach((cluster, state) -> {
+            if (state.isSynced()) {
+                repair(cluster, state.index.drain(now, delay));
+            }
+        });
+    }
+
+    /**
+     * Safety net for missed events: compares every known name again on the next pass.
+     */
+    @Scheduled(fixedDelayString = "${app.reconciler.resyncInterval}", initialDelayString = "${app.reconciler.resyncInterval}")
+    public void resync() {
+        long now = System.currentTimeMillis();
+        clusters.forEach((cluster, state) -> {
+            if (state.isSynced()) {
+                log.debug("Full resync of ingress paths in cluster [{}]", cluster);
+                state.index.markAllDirty(now);
+            }
+        });
+    }
+
+    public int getPendingCount() {
+        return clusters.values().stream().mapToInt(state -> state.index.getDirtyCount()).sum();
+    }
+
+    private void repair(String cluster, Map<String, Boolean> repairs) {
+        if (repairs.isEmpty()) {
+            return;
+        }
+        repairs.forEach((serviceName, register) -> {
+            String action = register ? "add" : "remove";
+            Counter.builder("k8s.reconciler.repairs")
+                    .description("Ingress paths added or removed by the reconciler")
+                    .tag("cluster", cluster)
+                    .tag("action", action)
+                    .tag("dryRun", String.valueOf(dryRun))
+                    .register(meterRegistry)
+                    .increment();
+            if (dryRun) {
+                log.info("Dry run: would {} ingress path of service [{}] in cluster [{}]", action, serviceName, cluster);
+                return;
+            }
+            log.info("Repairing drift: {} ingress path of service [{}] in cluster [{}]", action, serviceName, cluster);
+            (register ? kubernetesRepository.register2Ingress(cluster, serviceName)
+                    : kubernetesRepository.unregister2Ingress(cluster, serviceName))
+                    .whenComplete((result, e) -> {
+                        if (e != null) {
+                            log.warn("Failed to {} ingress path of service [{}] in cluster [{}]: {}", action, serviceName,
+                                    cluster, e.getMessage());
+                        }
+                    });
+        });
+    }
+
+    private static <T extends HasMetadata> ResourceEventHandler<T> handler(Updater updater) {
+        return new ResourceEventHandler<T>() {
+            @Override
+            public void onAdd(T resource) {
+                update(resource, true);
+            }
+
+            @Override
+            public void onUpdate(T oldResource, T newResource) {
+                update(newResource, true);
+            }
+
+            @Override
+            public void onDelete(T resource, boolean deletedFinalStateUnknown) {
+                update(resource, false);
+            }
+
+            private void update(T resource, boolean present) {
+                String name = resource.getMetadata().getName();
+                Map<String, String> labels = resource.getMetadata().getLabels();
+                // only objects created by this application carry their own name as app label
+                if (labels != null && name.equals(labels.get(APP_LABEL))) {
+                    updater.update(resource.getMetadata().getNamespace(), name, present, System.currentTimeMillis());
+                }
+            }
+        };
+    }
+
+    private static ResourceEventHandler<Ingress> ingressHandler(IngressRouteIndex index) {
+        BiConsumer<Ingress, Set<String>> update = (ingress, serviceNames) ->
+                index.updateIngress(ingress.getMetadata().getName(), serviceNames, System.currentTimeMillis());
+        return new ResourceEventHandler<Ingress>() {
+            @Override
+            public void onAdd(Ingress ingress) {
+                update.accept(ingress, serviceNames(ingress));
+            }
+
+            @Override
+            public void onUpdate(Ingress oldIngress, Ingress newIngress) {
+                update.accept(newIngress, serviceNames(newIngress));
+            }
+
+            @Override
+            public void onDelete(Ingress ingress, boolean deletedFinalStateUnknown) {
+                update.accept(ingress, Collections.emptySet());
+            }
+        };
+    }
+
+    static Set<String> serviceNames(Ingress ingress) {
+        Set<String> serviceNames = new HashSet<>();
+        if (ingress.getSpec() == null || ingress.getSpec().getRules() == null) {
+            return serviceNames;
+        }
+        for (IngressRule rule : ingress.getSpec().getRules()) {
+            HTTPIngressRuleValue http = rule.getHttp();
+            if (http == null || http.getPaths() == null) {
+                continue;
+            }
+            http.getPaths().stream()
+                    .map(HTTPIngressPath::getBackend)
+                    .filter(backend -> backend != null && backend.getService() != null)
+                    .map(backend -> backend.getService().getName())
+                    .filter(Objects::nonNull)
+                    .forEach(serviceNames::add);
+        }
+        return serviceNames;
+    }
+
+    private interface Updater {
+        void update(String namespace, String name, boolean present, long now);
+    }
+
+    private static class ClusterState {
+        private final IngressRouteIndex index = new IngressRouteIndex();
+        private final List<SharedIndexInformer<?>> informers = new CopyOnWriteArrayList<>();
+        private int informerCount = 3;
+        private BooleanSupplier deploymentsSynced = () -> true;
+
+        private boolean isSynced() {
+            return informers.size() == informerCount && informers.stream().allMatch(SharedIndexInformer::hasSynced)
+                    && deploymentsSynced.getAsBoolean();
+        }
+    }
+}
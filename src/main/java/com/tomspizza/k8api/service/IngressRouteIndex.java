@@ -0,0 +1,121 @@
+package com.tomspizza.k8api.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * What the reconciler knows about one cluster: the namespaces holding a managed service and deployment of
+ * each name, and the ingress that routes each service name. Names touched by an event are marked dirty and
+ * only those are compared on the next pass.
+ */
+public class IngressRouteIndex {
+
+    private final Map<String, Set<String>> services = new HashMap<>();
+
+    private final Map<String, Set<String>> deployments = new HashMap<>();
+
+    private final Map<String, String> routes = new HashMap<>();
+
+    private final Map<String, Long> dirty = new LinkedHashMap<>();
+
+    public synchronized void updateService(String namespace, String name, boolean present, long now) {
+        update(services, namespace, name, present);
+        markDirty(name, now);
+    }
+
+    public synchronized void updateDeployment(String namespace, String name, boolean present, long now) {
+        update(deployments, namespace, name, present);
+        markDirty(name, now);
+    }
+
+    /**
+     * Replaces the routes of one ingress with the service names it currently has paths for.
+     */
+    public synchronized void updateIngress(String ingress, Set<String> serviceNames, long now) {
+        for (Iterator<Map.Entry<String, String>> it = routes.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<String, String> route = it.next();
+            if (route.getValue().equals(ingress) && !serviceNames.contains(route.getKey())) {
+                it.remove();
+                markDirty(route.getKey(), now);
+            }
+        }
+        for (String serviceName : serviceNames) {
+            if (!ingress.equals(routes.put(serviceName, ingress))) {
+                markDirty(serviceName, now);
+            }
+        }
+    }
+
+    public synchronized void markAllDirty(long now) {
+        services.keySet().forEach(name -> dirty.putIfAbsent(name, now));
+        deployments.keySet().forEach(name -> dirty.putIfAbsent(name, now));
+        routes.keySet().forEach(name -> dirty.putIfAbsent(name, now));
+    }
+
+    /**
+     * Takes the names that have been dirty for at least {@code delay} milliseconds and returns the repairs
+     * they need: {@code true} to add the ingress path, {@code false} to remove it. Waiting lets a deploy or
+     * delete that is still running finish its own ingress change first.
+     */
+    public synchronized Map<String, Boolean> drain(long now, long delay) {
+        Map<String, Boolean> repairs = new LinkedHashMap<>();
+        List<String> ready = new ArrayList<>();
+        dirty.forEach((name, since) -> {
+            if (now - since >= delay) {
+                ready.add(name);
+            }
+        });
+        for (String name : ready) {
+            dirty.remove(name);
+            boolean routed = routes.containsKey(name);
+            boolean wanted = isWanted(name);
+            if (wanted != routed) {
+                repairs.put(name, wanted);
+            }
+        }
+        return repairs;
+    }
+
+    public synchronized int getRouteCount() {
+        return routes.size();
+    }
+
+    public synchronized int getDirtyCount() {
+        return dirty.size();
+    }
+
+    private boolean isWanted(String name) {
+        Set<String> serviceNamespaces = services.get(name);
+        Set<String> deploymentNamespaces = deployments.get(name);
+        if (serviceNamespaces == null || deploymentNamespaces == null) {
+            return false;
+        }
+        for (String namespace : serviceNamespaces) {
+            if (deploymentNamespaces.contains(namespace)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void markDirty(String name, long now) {
+        dirty.put(name, now);
+    }
+
+    private static void update(Map<String, Set<String>> index, String namespace, String name, boolean present) {
+        if (present) {
+            index.computeIfAbsent(name, k -> new HashSet<>()).add(namespace);
+            return;
+        }
+        Set<String> namespaces = index.get(name);
+        if (namespaces != null && namespaces.remove(namespace) && namespaces.isEmpty()) {
+            index.remove(name);
+        }
+    }
+}
@@ -1,18 +1,54 @@
 package com.tomspizza.k8api.service;
 
+import com.tomspizza.k8api.cache.DeploymentCache;
+import com.tomspizza.k8api.cache.DeploymentProjectionCache;
+import com.tomspizza.k8api.cache.IngressAddressCache;
+import com.tomspizza.k8api.cluster.ClusterRegistry;
+import com.tomspizza.k8api.cluster.ClusterResults;
+import com.tomspizza.k8api.dto.DeleteBatchDto;
 import com.tomspizza.k8api.dto.DeployDto;
+import com.tomspizza.k8api.dto.DeployReportDto;
 import com.tomspizza.k8api.dto.DeploymentDto;
+import com.tomspizza.k8api.dto.DeploymentPageDto;
 import com.tomspizza.k8api.dto.K8sDto;
+import com.tomspizza.k8api.dto.PodDto;
+import com.tomspizza.k8api.dto.ResultDto;
 import com.tomspizza.k8api.dto.ScaleDto;
+import com.tomspizza.k8api.dto.StatusDto;
 import com.tomspizza.k8api.exception.ServiceException;
+import com.tomspizza.k8api.journal.JournalEntry;
+import com.tomspizza.k8api.journal.JournalOperation;
+import com.tomspizza.k8api.journal.OperationJournal;
+import com.tomspizza.k8api.metrics.KubernetesMetrics;
+import com.tomspizza.k8api.ratelimit.RateLimitedException;
 import com.tomspizza.k8api.repository.KubernetesRepository;
+import com.tomspizza.k8api.util.ETagUtil;
+import io.fabric8.kubernetes.api.model.HasMetadata;
+import io.fabric8.kubernetes.api.model.Pod;
 import io.fabric8.kubernetes.api.model.apps.Deployment;
+import io.fabric8.kubernetes.api.model.apps.DeploymentList;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -22,51 +58,525 @@ public class KubernetesService {
 
     private static final int MIN_POD = 1;
     private static final int MAX_POD = 10;
+    private static final String APP_LABEL = "app";
 
     @Value("${app.urlSchema}")
     private String urlSchema;
 
+    @Value("${app.list.pageSize}")
+    private int listPageSize;
+
+    @Value("${app.scale.window}")
+    private long scaleWindow;
+
+    @Value("${app.deploy.readyTimeout}")
+    private long readyTimeout;
+
     private final KubernetesRepository kubernetesRepository;
 
+    private final DeploymentCache deploymentCache;
+
+    private final IngressAddressCache ingressAddressCache;
+
+    private final DeploymentProjectionCache projectionCache;
+
+    private final ClusterRegistry clusterRegistry;
+
+    private final ExecutorService kubernetesExecutor;
+
+    private final ExecutorService clusterExecutor;
+
+    private final RolloutTracker rolloutTracker;
+
+    private final KubernetesMetrics kubernetesMetrics;
+
+    private final OperationJournal operationJournal;
+
+    private ScaleCoordinator scaleCoordinator;
+
+    @PostConstruct
+    public void init() {
+        scaleCoordinator = new ScaleCoordinator(scaleWindow, kubernetesExecutor, (cluster, namespace, serviceName, replicas) -> {
+            Integer applied = kubernetesRepository.scalePod(cluster, namespace, serviceName, replicas).getSpec().getReplicas();
+            return applied == null ? replicas : applied;
+        });
+    }
+
+    @PreDestroy
+    public void destroy() {
+        scaleCoordinator.shutdown();
+    }
+
     public List<DeploymentDto> getAllDeployments() {
-        List<Deployment> deployments = kubernetesRepository.getDeployments();
-        String url = kubernetesRepository.getIngressPublicUrl();
-        String uri = (url == null ? null : String.format("%s://%s", urlSchema, url));
-        return deployments.stream().map(d -> new DeploymentDto(d, uri)).collect(Collectors.toList());
+        return getDeployments(null, null, null, false, Collections.emptyList(), etag -> false).getItems();
+    }
+
+    /**
+     * Lists deployments of one cluster, or of all clusters in parallel when {@code cluster} is null.
+     * Clusters failing or timing out are left out and named in the failed clusters of the result.
+     * Returns null without mapping anything when {@code notModified} accepts the ETag of the listing. The
+     * {@code representation} values (media type, field projection) are part of the ETag, as they change the body.
+     * With {@code includePods} the pods of the listed deployments are fetched with one more list call per cluster
+     * and attached to their deployment by the {@code app} label.
+     */
+    public DeploymentPageDto getDeployments(String cluster, String namespace, String labelSelector, boolean includePods,
+                                            List<String> representation, Predicate<String> notModified) {
+        ClusterResults<ClusterListing> listings;
+        if (cluster == null) {
+            listings = clusterRegistry.fanOut(c -> listCluster(c, namespace, labelSelector, includePods), clusterExecutor);
+        } else {
+            listings = new ClusterResults<>();
+            String name = clusterRegistry.resolve(cluster);
+            listings.getResults().put(name, listCluster(name, namespace, labelSelector, includePods));
+        }
+
+        List<Deployment> deployments = new ArrayList<>();
+        List<HasMetadata> tagged = new ArrayList<>();
+        List<String> values = new ArrayList<>();
+        values.add(namespace);
+        values.add(labelSelector);
+        values.add(String.valueOf(includePods));
+        values.addAll(representation);
+        listings.getResults().forEach((name, listing) -> {
+            deployments.addAll(listing.deployments);
+            tagged.addAll(listing.deployments);
+            if (listing.pods != null) {
+                tagged.addAll(listing.pods);
+            }
+            values.add(name);
+            values.add(listing.uri);
+        });
+        if (notModified.test(ETagUtil.of(tagged, values.toArray(new String[0])))) {
+            return null;
+        }
+
+        long pass = projectionCache.nextGeneration();
+        List<DeploymentDto> dtos = new ArrayList<>(deployments.size());
+        listings.getResults().forEach((name, listing) -> {
+            Map<String, List<PodDto>> pods = listing.pods == null ? null : groupPods(listing.pods);
+            listing.deployments.forEach(d -> dtos.add(withPods(projectionCache.get(d, name, listing.uri, pass), pods)));
+        });
+        if (cluster == null && !listings.isPartial() && StringUtils.isEmpty(namespace) && StringUtils.isEmpty(labelSelector)) {
+            projectionCache.retain(deployments);
+        }
+
+        DeploymentPageDto result = new DeploymentPageDto();
+        result.setItems(dtos);
+        result.setFailedClusters(new ArrayList<>(listings.getFailures().keySet()));
+        return result;
+    }
+
+    public DeploymentPageDto getDeploymentPage(String cluster, String namespace, String labelSelector, int limit,
+                                               String continueToken, boolean includePods) {
+        String name = clusterRegistry.resolve(cluster);
+        DeploymentList deploymentList = kubernetesRepository.listDeployments(name, namespace, labelSelector, limit, continueToken);
+        Map<String, List<PodDto>> pods = includePods
+                ? groupPods(kubernetesRepository.listPods(name, namespace, appsOf(deploymentList.getItems()))) : null;
+        String uri = getServiceUri(name);
+        long pass = projectionCache.nextGeneration();
+        DeploymentPageDto page = new DeploymentPageDto();
+        page.setItems(deploymentList.getItems().stream()
+                .map(d -> withPods(projectionCache.get(d, name, uri, pass), pods))
+                .collect(Collectors.toList()));
+        page.setContinueToken(deploymentList.getMetadata().getContinue());
+        return page;
+    }
+
+    public void streamDeployments(String cluster, String namespace, String labelSelector, Consumer<DeploymentDto> consumer) {
+        String name = clusterRegistry.resolve(cluster);
+        String uri = getServiceUri(name);
+        long pass = projectionCache.nextGeneration();
+        String continueToken = null;
+        do {
+            DeploymentList deploymentList = kubernetesRepository.listDeployments(name, namespace, labelSelector, listPageSize, continueToken);
+            deploymentList.getItems().forEach(d -> consumer.accept(projectionCache.get(d, name, uri, pass)));
+            continueToken = deploymentList.getMetadata().getContinue();
+        } while (!StringUtils.isEmpty(continueToken));
+    }
+
+    public String getServiceUri(String cluster) {
+        String url = kubernetesRepository.getIngressPublicUrl(cluster);
+        return (url == null ? null : String.format("%s://%s", urlSchema, url));
+    }
+
+    private ClusterListing listCluster(String cluster, String namespace, String labelSelector, boolean includePods) {
+        List<Deployment> deployments = kubernetesRepository.getDeployments(cluster, namespace, labelSelector);
+        return new ClusterListing(deployments,
+                includePods ? kubernetesRepository.listPods(cluster, namespace, appsOf(deployments)) : null,
+                getServiceUri(cluster));
+    }
+
+    /**
+     * The {@code app} label values of the pods of these deployments, which are the deployment names.
+     */
+    private static Set<String> appsOf(List<Deployment> deployments) {
+        return deployments.stream().map(d -> d.getMetadata().getName()).collect(Collectors.toCollection(TreeSet::new));
+    }
+
+    /**
+     * Pods by namespace and {@code app} label, which {@code deployDeployment} sets to the deployment name.
+     */
+    private static Map<String, List<PodDto>> groupPods(List<Pod> pods) {
+        Map<String, List<PodDto>> grouped = new HashMap<>();
+        for (Pod pod : pods) {
+            Map<String, String> labels = pod.getMetadata().getLabels();
+            String app = labels == null ? null : labels.get(APP_LABEL);
+            if (app != null) {
+                grouped.computeIfAbsent(pod.getMetadata().getNamespace() + "/" + app, k -> new ArrayList<>())
+                        .add(new PodDto(pod));
+            }
+        }
+        return grouped;
+    }
+
+    private static DeploymentDto withPods(DeploymentDto dto, Map<String, List<PodDto>> pods) {
+        if (pods == null) {
+            return dto;
+        }
+        return dto.withPods(pods.getOrDefault(dto.getNamespace() + "/" + dto.getServiceName(), Collections.emptyList()));
+    }
+
+    public StatusDto getStatus() {
+        StatusDto status = new StatusDto();
+        status.setDeploymentCacheEnabled(deploymentCache.isEnabled());
+        status.setDeploymentCacheReady(deploymentCache.isReady());
+        status.setDeploymentCacheSize(deploymentCache.size());
+        status.setDeploymentCacheResourceVersion(deploymentCache.getResourceVersion());
+        status.setDeploymentCacheStalenessMillis(deploymentCache.getStalenessMillis());
+        status.setIngressAddressReady(ingressAddressCache.isReady());
+        status.setIngressAddress(ingressAddressCache.getCachedAddress());
+        status.setIngressAddressUpdated(ingressAddressCache.getLastUpdateTime());
+        return status;
     }
 
     public void deploy(DeployDto deployDto) {
+        deploy(deployDto, false, step -> {
+        });
+    }
+
+    /**
+     * Applies namespace, deployment, service and ingress. With {@code waitForReady} it also waits until the
+     * rollout is complete and reports when the pod was scheduled, the image pulled and the deployment ready.
+     */
+    public DeployReportDto deploy(DeployDto deployDto, boolean waitForReady, Consumer<String> progress) {
+        JournalEntry entry = operationJournal.begin(JournalOperation.deploy(clusterRegistry.resolve(deployDto.getCluster()),
+                deployDto));
+        return deploy(deployDto, waitForReady, progress, entry);
+    }
+
+    private DeployReportDto deploy(DeployDto deployDto, boolean waitForReady, Consumer<String> progress, JournalEntry entry) {
         log.info("Deploying pod");
-        kubernetesRepository.getOrCreateNamespace(deployDto.getNamespace());
+        DeployPhases phases = new DeployPhases(progress);
+        RolloutTracker.Rollout rollout = waitForReady ? rolloutTracker.track(deployDto.getCluster(),
+                deployDto.getNamespace(), deployDto.getServiceName(), phases) : null;
+        try {
+            if (!entry.isDone(DeployPhases.NAMESPACE)) {
+                kubernetesRepository.getOrCreateNamespace(deployDto.getCluster(), deployDto.getNamespace());
+                entry.step(DeployPhases.NAMESPACE);
+            }
+            phases.mark(DeployPhases.NAMESPACE);
 
-        kubernetesRepository.deployDeployment(deployDto.getNamespace(),
-                deployDto.getServiceName(),
-                deployDto.getImage());
+            if (!entry.isDone(DeployPhases.DEPLOYMENT)) {
+                Deployment deployment = kubernetesRepository.deployDeployment(deployDto.getCluster(),
+                        deployDto.getNamespace(),
+                        deployDto.getServiceName(),
+                        deployDto.getImage());
+                entry.step(DeployPhases.DEPLOYMENT);
+                if (rollout != null) {
+                    rollout.check(deployment);
+                }
+            }
+            phases.mark(DeployPhases.DEPLOYMENT);
 
-        log.info("Exposing to service");
-        kubernetesRepository.deployService(deployDto.getNamespace(),
-                deployDto.getServiceName());
+            if (!entry.isDone(DeployPhases.SERVICE)) {
+                log.info("Exposing to service");
+                kubernetesRepository.deployService(deployDto.getCluster(),
+                        deployDto.getNamespace(),
+                        deployDto.getServiceName());
+                entry.step(DeployPhases.SERVICE);
+            }
+            phases.mark(DeployPhases.SERVICE);
+
+            log.info("Exposing to ingress");
+            await(kubernetesRepository.register2Ingress(deployDto.getCluster(), deployDto.getServiceName()));
+            phases.mark(DeployPhases.INGRESS);
+            entry.end();
+
+            if (rollout != null) {
+                log.info("Waiting for rollout of [{}]", deployDto.getServiceName());
+                rolloutTracker.await(rollout, readyTimeout);
+            }
+        } finally {
+            // a failed operation was reported to the caller and is not resumed
+            entry.end();
+            if (rollout != null) {
+                rolloutTracker.untrack(rollout);
+            }
+        }
+
+        Map<String, Long> durations = phases.getDurations();
+        kubernetesMetrics.recordDeploy(durations, phases.getTotal(), waitForReady);
+        DeployReportDto report = new DeployReportDto(deployDto);
+        report.setReady(waitForReady);
+        report.setDuration(TimeUnit.NANOSECONDS.toMillis(phases.getTotal()));
+        Map<String, Long> millis = new LinkedHashMap<>();
+        durations.forEach((phase, nanos) -> millis.put(phase, TimeUnit.NANOSECONDS.toMillis(nanos)));
+        report.setPhases(millis);
+        return report;
+    }
+
+    public List<ResultDto> deployBatch(List<DeployDto> deployDtos) {
+        log.info("Deploying {} pods", deployDtos.size());
+        Map<String, CompletableFuture<Void>> namespaces = new HashMap<>();
+        for (DeployDto deployDto : deployDtos) {
+            namespaces.computeIfAbsent(namespaceKey(deployDto), key -> CompletableFuture.runAsync(
+                    () -> kubernetesRepository.getOrCreateNamespace(deployDto.getCluster(), deployDto.getNamespace()),
+                    kubernetesExecutor));
+        }
+
+        List<ResultDto> results = new ArrayList<>();
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (DeployDto deployDto : deployDtos) {
+            ResultDto result = new ResultDto(deployDto);
+            results.add(result);
+            futures.add(namespaces.get(namespaceKey(deployDto))
+                    .thenRunAsync(() -> {
+                        kubernetesRepository.deployDeployment(deployDto.getCluster(),
+                                deployDto.getNamespace(),
+                                deployDto.getServiceName(),
+                                deployDto.getImage());
+                        kubernetesRepository.deployService(deployDto.getCluster(),
+                                deployDto.getNamespace(),
+                                deployDto.getServiceName());
+                        result.setSuccess(true);
+                    }, kubernetesExecutor)
+                    .exceptionally(e -> {
+                        log.error("Failed to deploy [{}]", deployDto.getServiceName(), e);
+                        result.fail(e);
+                        return null;
+                    }));
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
 
         log.info("Exposing to ingress");
-        kubernetesRepository.register2Ingress(deployDto.getServiceName());
+        Map<String, Map<String, List<ResultDto>>> deployed = new LinkedHashMap<>();
+        for (ResultDto result : results) {
+            if (result.isSuccess()) {
+                deployed.computeIfAbsent(clusterRegistry.resolve(result.getCluster()), k -> new LinkedHashMap<>())
+                        .computeIfAbsent(result.getServiceName(), k -> new ArrayList<>())
+                        .add(result);
+            }
+        }
+        futures.clear();
+        deployed.forEach((cluster, byName) -> kubernetesRepository.registerAll2Ingress(cluster, byName.keySet())
+                .forEach((serviceName, future) -> futures.add(future.exceptionally(e -> {
+                    byName.get(serviceName).forEach(result -> result.fail(e));
+                    return null;
+                }))));
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+        return results;
     }
 
     public void scale(ScaleDto scaleDto) {
-        int numberOfReplicas = scaleDto.getNumberOfReplicas();
+        scale(scaleDto, step -> {
+        });
+    }
+
+    public void scale(ScaleDto scaleDto, Consumer<String> progress) {
+        validateReplicas(scaleDto.getNumberOfReplicas());
+        await(submitScale(scaleDto));
+        progress.accept("scale");
+    }
+
+    public List<ResultDto> scaleBatch(List<ScaleDto> scaleDtos) {
+        log.info("Scaling {} deployments", scaleDtos.size());
+        List<ResultDto> results = new ArrayList<>();
+        for (ScaleDto scaleDto : scaleDtos) {
+            ResultDto result = new ResultDto(scaleDto);
+            try {
+                validateReplicas(scaleDto.getNumberOfReplicas());
+                clusterRegistry.resolve(scaleDto.getCluster());
+                result.setSuccess(true);
+            } catch (ServiceException e) {
+                result.fail(e);
+            }
+            results.add(result);
+        }
+
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (int i = 0; i < scaleDtos.size(); i++) {
+            ResultDto result = results.get(i);
+            if (result.isSuccess()) {
+                futures.add(submitScale(scaleDtos.get(i))
+                        .thenAccept(result::setReplicas)
+                        .exceptionally(e -> {
+                            log.error("Failed to scale [{}]", result.getServiceName(), e);
+                            result.fail(e);
+                            return null;
+                        }));
+            }
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+        return results;
+    }
+
+    private CompletableFuture<Integer> submitScale(ScaleDto scaleDto) {
+        return scaleCoordinator.submit(clusterRegistry.resolve(scaleDto.getCluster()), scaleDto.getNamespace(),
+                scaleDto.getServiceName(), scaleDto.getNumberOfReplicas());
+    }
+
+    public void validateReplicas(int numberOfReplicas) {
         if (numberOfReplicas < MIN_POD || numberOfReplicas > MAX_POD) {
             throw new ServiceException(String.format("Number of replicas should be in %s and %s", MIN_POD, MAX_POD));
         }
-        kubernetesRepository.scalePod(scaleDto.getNamespace(), scaleDto.getServiceName(), numberOfReplicas);
     }
 
     public void delete(K8sDto k8sDto) {
-        log.info("Remove deployment");
-        kubernetesRepository.deleteDeployment(k8sDto.getNamespace(), k8sDto.getServiceName());
+        delete(k8sDto, step -> {
+        });
+    }
+
+    /**
+     * Removes deployment, service and ingress path concurrently. Pods and replica sets are garbage
+     * collected by the cluster in the background.
+     */
+    public void delete(K8sDto k8sDto, Consumer<String> progress) {
+        JournalEntry entry = operationJournal.begin(JournalOperation.delete(clusterRegistry.resolve(k8sDto.getCluster()),
+                k8sDto));
+        delete(k8sDto, progress, entry);
+    }
+
+    private void delete(K8sDto k8sDto, Consumer<String> progress, JournalEntry entry) {
+        log.info("Removing deployment, service and ingress path of [{}]", k8sDto.getServiceName());
+        CompletableFuture<Void> deployment = entry.isDone("deployment") ? CompletableFuture.completedFuture(null)
+                : CompletableFuture.runAsync(() -> {
+            kubernetesRepository.deleteDeployment(k8sDto.getCluster(), k8sDto.getNamespace(), k8sDto.getServiceName());
+            entry.step("deployment");
+            progress.accept("deployment");
+        }, kubernetesExecutor);
+        CompletableFuture<Void> service = entry.isDone("service") ? CompletableFuture.completedFuture(null)
+                : CompletableFuture.runAsync(() -> {
+            kubernetesRepository.deleteService(k8sDto.getCluster(), k8sDto.getNamespace(), k8sDto.getServiceName());
+            entry.step("service");
+            progress.accept("service");
+        }, kubernetesExecutor);
+        CompletableFuture<Void> ingress = kubernetesRepository.unregister2Ingress(k8sDto.getCluster(), k8sDto.getServiceName())
+                .thenRun(() -> progress.accept("ingress"));
+        try {
+            await(CompletableFuture.allOf(deployment, service, ingress));
+        } finally {
+            entry.end();
+        }
+    }
+
+    /**
+     * Finishes a deploy or delete that was interrupted by a restart, skipping the steps it had completed.
+     * Every step is idempotent, so one that completed without being journaled is simply applied again.
+     */
+    public void resume(JournalOperation operation) {
+        log.info("Resuming {} of [{}] in namespace [{}], done: {}", operation.getType(), operation.getServiceName(),
+                operation.getNamespace(), operation.getSteps());
+        JournalEntry entry = operationJournal.resume(operation);
+        if (operation.getType() == JournalOperation.Type.DEPLOY) {
+            deploy(operation.toDeployDto(), false, step -> {
+            }, entry);
+        } else {
+            delete(operation.toK8sDto(), step -> {
+            }, entry);
+        }
+    }
+
+    /**
+     * Deletes every deployment and service matching the selector in one namespace with collection deletes,
+     * and removes all their ingress paths in a single ingress write.
+     */
+    public List<ResultDto> deleteBatch(DeleteBatchDto deleteBatchDto) {
+        String cluster = deleteBatchDto.getCluster();
+        String namespace = deleteBatchDto.getNamespace();
+        String labelSelector = deleteBatchDto.getLabelSelector();
+        if (StringUtils.isEmpty(namespace) || StringUtils.isEmpty(labelSelector)) {
+            throw new ServiceException("Namespace and labelSelector are required");
+        }
 
-        log.info("Remove service");
-        kubernetesRepository.deleteService(k8sDto.getNamespace(), k8sDto.getServiceName());
+        CompletableFuture<List<Deployment>> deploymentList = CompletableFuture.supplyAsync(
+                () -> kubernetesRepository.listDeployments(cluster, namespace, labelSelector, null, null).getItems(),
+                kubernetesExecutor);
+        List<String> serviceNames = kubernetesRepository.getServiceNames(cluster, namespace, labelSelector);
+        List<String> deploymentNames = await(deploymentList).stream()
+                .map(d -> d.getMetadata().getName())
+                .collect(Collectors.toList());
+        Set<String> names = new TreeSet<>(deploymentNames);
+        names.addAll(serviceNames);
+        log.info("Deleting {} deployment(s) and {} service(s) matching [{}] in namespace [{}]",
+                deploymentNames.size(), serviceNames.size(), labelSelector, namespace);
+        if (names.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        CompletableFuture<Void> deployments = deploymentNames.isEmpty() ? CompletableFuture.completedFuture(null)
+                : CompletableFuture.runAsync(() -> kubernetesRepository.deleteDeployments(cluster, namespace, labelSelector,
+                deploymentNames), kubernetesExecutor);
+        CompletableFuture<Void> services = serviceNames.isEmpty() ? CompletableFuture.completedFuture(null)
+                : CompletableFuture.runAsync(() -> kubernetesRepository.deleteServices(cluster, namespace, labelSelector,
+                serviceNames), kubernetesExecutor);
+        CompletableFuture<Void> ingress = kubernetesRepository.unregisterAll2Ingress(cluster, names);
+        Throwable deploymentError = failureOf(deployments);
+        Throwable serviceError = failureOf(services);
+        Throwable ingressError = failureOf(ingress);
 
-        log.info("Unregister of ingress");
-        kubernetesRepository.unregister2Ingress(k8sDto.getServiceName());
+        List<ResultDto> results = new ArrayList<>(names.size());
+        for (String name : names) {
+            K8sDto k8sDto = new K8sDto();
+            k8sDto.setCluster(cluster);
+            k8sDto.setNamespace(namespace);
+            k8sDto.setServiceName(name);
+            ResultDto result = new ResultDto(k8sDto);
+            result.setSuccess(true);
+            if (deploymentError != null && deploymentNames.contains(name)) {
+                result.fail(deploymentError);
+            } else if (serviceError != null && serviceNames.contains(name)) {
+                result.fail(serviceError);
+            } else if (ingressError != null) {
+                result.fail(ingressError);
+            }
+            results.add(result);
+        }
+        return results;
+    }
+
+    private String namespaceKey(K8sDto k8sDto) {
+        return clusterRegistry.resolve(k8sDto.getCluster()) + "/" + k8sDto.getNamespace();
+    }
+
+    private static Throwable failureOf(CompletableFuture<?> future) {
+        return future.handle((result, e) -> e).join();
+    }
+
+    private static <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            // ingress writes run on the writer thread, outside the repository's rate limit translation
+            RateLimitedException limited = RateLimitedException.causeOf(e);
+            if (limited != null) {
+                throw limited.toTooManyRequests();
+            }
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    private static class ClusterListing {
+        private final List<Deployment> deployments;
+        private final List<Pod> pods;
+        private final String uri;
+
+        private ClusterListing(List<Deployment> deployments, List<Pod> pods, String uri) {
+            this.deployments = deployments;
+            this.pods = pods;
+            this.uri = uri;
+        }
     }
 }
@@ -0,0 +1,43 @@
+package com.tomspizza.k8api.service;
+
+import com.tomspizza.k8api.journal.JournalOperation;
+import com.tomspizza.k8api.journal.OperationJournal;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Finishes the deploys and deletes the journal found unfinished at startup, one after another.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class OperationRecovery {
+
+    private final OperationJournal operationJournal;
+
+    private final KubernetesService kubernetesService;
+
+    private final ExecutorService kubernetesExecutor;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeIncomplete() {
+        List<JournalOperation> operations = operationJournal.getIncomplete();
+        if (operations.isEmpty()) {
+            return;
+        }
+        kubernetesExecutor.execute(() -> operations.forEach(operation -> {
+            try {
+                kubernetesService.resume(operation);
+            } catch (RuntimeException e) {
+                log.error("Failed to resume {} of [{}] in namespace [{}]", operation.getType(),
+                        operation.getServiceName(), operation.getNamespace(), e);
+            }
+        }));
+    }
+}
@@ -0,0 +1,152 @@
+package com.tomspizza.k8api.service;
+
+import com.tomspizza.k8api.dto.K8sDto;
+import com.tomspizza.k8api.dto.OperationDto;
+import com.tomspizza.k8api.exception.TooManyRequestsException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+@Slf4j
+@RequiredArgsConstructor
+@Component
+public class OperationRegistry {
+
+    @Value("${app.operations.ttl}")
+    private long ttl;
+
+    @Value("${app.operations.sseTimeout}")
+    private long sseTimeout;
+
+    private final ExecutorService operationExecutor;
+
+    private final Map<String, OperationDto> operations = new ConcurrentHashMap<>();
+
+    private final ExecutorService eventExecutor = Executors.newFixedThreadPool(2, eventThreadFactory());
+
+    public OperationDto submit(String type, K8sDto k8sDto, Consumer<OperationDto> task) {
+        OperationDto operation = new OperationDto(UUID.randomUUID().toString(), type, k8sDto);
+        operations.put(operation.getId(), operation);
+        try {
+            operationExecutor.execute(() -> run(operation, task));
+        } catch (RejectedExecutionException e) {
+            operations.remove(operation.getId());
+            throw new TooManyRequestsException("Too many pending operations, try again later", 1L);
+        }
+        return operation;
+    }
+
+    public Optional<OperationDto> get(String id) {
+        return Optional.ofNullable(operations.get(id));
+    }
+
+    public int size() {
+        return operations.size();
+    }
+
+    /**
+     * Streams the operation state until it is done. Sends happen on a separate thread, so a slow client never
+     * holds up the operation; changes made while a send is in progress are merged into the next one.
+     */
+    public SseEmitter subscribe(OperationDto operation) {
+        SseEmitter emitter = new SseEmitter(sseTimeout);
+        EventSender sender = new EventSender(operation, emitter);
+        emitter.onCompletion(() -> operation.unsubscribe(sender));
+        emitter.onTimeout(() -> operation.unsubscribe(sender));
+        emitter.onError(e -> operation.unsubscribe(sender));
+        operation.subscribe(sender);
+        return emitter;
+    }
+
+    @PreDestroy
+    public void stop() {
+        eventExecutor.shutdownNow();
+    }
+
+    @Scheduled(fixedDelayString = "${app.operations.evictInterval}")
+    public void evict() {
+        long expiry = System.currentTimeMillis() - ttl;
+        operations.values().removeIf(o -> o.isDone() && o.getFinished() < expiry);
+    }
+
+    private void run(OperationDto operation, Consumer<OperationDto> task) {
+        log.info("Running {} operation [{}]", operation.getType(), operation.getId());
+        operation.start();
+        try {
+            task.accept(operation);
+            operation.succeed();
+        } catch (RuntimeException e) {
+            log.error("Operation [{}] failed", operation.getId(), e);
+            operation.fail(e.getMessage());
+        }
+    }
+
+    private static CustomizableThreadFactory eventThreadFactory() {
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("operation-events-");
+        threadFactory.setDaemon(true);
+        return threadFactory;
+    }
+
+    private class EventSender implements Consumer<OperationDto> {
+        private final OperationDto operation;
+        private final SseEmitter emitter;
+        private final AtomicBoolean changed = new AtomicBoolean();
+        private final AtomicBoolean sending = new AtomicBoolean();
+
+        private EventSender(OperationDto operation, SseEmitter emitter) {
+            this.operation = operation;
+            this.emitter = emitter;
+        }
+
+        @Override
+        public void accept(OperationDto o) {
+            changed.set(true);
+            schedule();
+        }
+
+        private void schedule() {
+            if (sending.compareAndSet(false, true)) {
+                eventExecutor.execute(this::send);
+            }
+        }
+
+        private void send() {
+            try {
+                while (changed.getAndSet(false)) {
+                    boolean done = operation.isDone();
+                    emitter.send(SseEmitter.event().name(operation.getState().name()).data(operation));
+                    if (done) {
+                        emitter.complete();
+                        return;
+                    }
+                }
+            } catch (IOException | RuntimeException e) {
+                log.info("Operation [{}] subscriber disconnected: {}", operation.getId(), e.getMessage());
+                operation.unsubscribe(this);
+                emitter.completeWithError(e);
+                return;
+            } finally {
+                sending.set(false);
+            }
+            if (changed.get()) {
+                schedule();
+            }
+        }
+    }
+}
@@ -0,0 +1,306 @@
+package com.tomspizza.k8api.service;
+
+import com.tomspizza.k8api.cluster.ClusterRegistry;
+import com.tomspizza.k8api.exception.ServiceException;
+import com.tomspizza.k8api.repository.KubernetesRepository;
+import com.tomspizza.k8api.util.DateUtil;
+import io.fabric8.kubernetes.api.model.ContainerStatus;
+import io.fabric8.kubernetes.api.model.Pod;
+import io.fabric8.kubernetes.api.model.PodCondition;
+import io.fabric8.kubernetes.api.model.apps.Deployment;
+import io.fabric8.kubernetes.api.model.apps.DeploymentStatus;
+import io.fabric8.kubernetes.client.Watch;
+import io.fabric8.kubernetes.client.Watcher;
+import io.fabric8.kubernetes.client.WatcherException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import javax.annotation.PreDestroy;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Follows rollouts started with {@code waitForReady}. Every cluster gets one Deployment and one Pod watch,
+ * opened on first use and shared by all waiting deploys, so readiness is pushed to us instead of polled.
+ */
+@Slf4j
+@Component
+public class RolloutTracker {
+
+    private static final String APP_LABEL = "app";
+
+    private static final long CLOCK_SKEW = 1000L;
+
+    @Value("${app.watch.retryInterval}")
+    private long retryInterval;
+
+    private final KubernetesRepository kubernetesRepository;
+
+    private final ClusterRegistry clusterRegistry;
+
+    private final ScheduledExecutorService scheduler;
+
+    private final Map<String, ClusterWatch> watches = new ConcurrentHashMap<>();
+
+    private final Map<String, List<Rollout>> rollouts = new ConcurrentHashMap<>();
+
+    public RolloutTracker(KubernetesRepository kubernetesRepository, ClusterRegistry clusterRegistry) {
+        this.kubernetesRepository = kubernetesRepository;
+        this.clusterRegistry = clusterRegistry;
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("rollout-");
+        threadFactory.setDaemon(true);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(threadFactory);
+    }
+
+    /**
+     * Starts following a rollout. Call it before the deployment is applied so no event can be missed.
+     */
+    public Rollout track(String cluster, String namespace, String serviceName, DeployPhases phases) {
+        String name = clusterRegistry.resolve(cluster);
+        Rollout rollout = new Rollout(key(name, namespace, serviceName), serviceName, phases);
+        rollouts.computeIfAbsent(rollout.key, k -> new CopyOnWriteArrayList<>()).add(rollout);
+        try {
+            watches.computeIfAbsent(name, ClusterWatch::new).start();
+        } catch (RuntimeException e) {
+            untrack(rollout);
+            throw e;
+        }
+        return rollout;
+    }
+
+    public void untrack(Rollout rollout) {
+        rollouts.computeIfPresent(rollout.key, (key, list) -> {
+            list.remove(rollout);
+            return list.isEmpty() ? null : list;
+        });
+    }
+
+    public void await(Rollout rollout, long timeout) {
+        try {
+            rollout.ready.get(timeout, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new ServiceException("Deployment [" + rollout.serviceName + "] was not ready within " + timeout + " ms");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServiceException("Interrupted while waiting for deployment [" + rollout.serviceName + "]");
+        } catch (ExecutionException e) {
+            throw (RuntimeException) e.getCause();
+        }
+    }
+
+    public int size() {
+        return rollouts.values().stream().mapToInt(List::size).sum();
+    }
+
+    @PreDestroy
+    public void stop() {
+        scheduler.shutdownNow();
+        watches.values().forEach(ClusterWatch::close);
+    }
+
+    private void onDeployment(String cluster, Watcher.Action action, Deployment deployment) {
+        List<Rollout> waiting = rollouts.get(key(cluster, deployment.getMetadata().getNamespace(),
+                deployment.getMetadata().getName()));
+        if (waiting == null) {
+            return;
+        }
+        for (Rollout rollout : waiting) {
+            if (action == Watcher.Action.DELETED) {
+                rollout.ready.completeExceptionally(
+                        new ServiceException("Deployment [" + rollout.serviceName + "] was deleted during rollout"));
+            } else {
+                rollout.check(deployment);
+            }
+        }
+    }
+
+    private void onPod(String cluster, Watcher.Action action, Pod pod) {
+        String app = pod.getMetadata().getLabels() == null ? null : pod.getMetadata().getLabels().get(APP_LABEL);
+        List<Rollout> waiting = action == Watcher.Action.DELETED || app == null ? null
+                : rollouts.get(key(cluster, pod.getMetadata().getNamespace(), app));
+        if (waiting == null) {
+            return;
+        }
+        String created = pod.getMetadata().getCreationTimestamp();
+        long createdMillis = StringUtils.isEmpty(created) ? Long.MAX_VALUE : DateUtil.toEpochMillis(created);
+        for (Rollout rollout : waiting) {
+            // pods of the previous revision share the label, only count the ones created for this rollout
+            if (createdMillis < rollout.startMillis - CLOCK_SKEW) {
+                continue;
+            }
+            if (isScheduled(pod)) {
+                rollout.phases.mark(DeployPhases.POD_SCHEDULED);
+            }
+            if (isImagePulled(pod)) {
+                rollout.phases.mark(DeployPhases.IMAGE_PULLED);
+            }
+        }
+    }
+
+    /**
+     * Same rules as {@code kubectl rollout status}: the controller has seen the latest spec, all replicas
+     * are updated, no old replicas are left and every updated replica is available.
+     */
+    static boolean isRolledOut(Deployment deployment) {
+        DeploymentStatus status = deployment.getStatus();
+        Long generation = deployment.getMetadata().getGeneration();
+        if (status == null || status.getObservedGeneration() == null
+                || (generation != null && status.getObservedGeneration() < generation)) {
+            return false;
+        }
+        int desired = deployment.getSpec() == null || deployment.getSpec().getReplicas() == null
+                ? 1 : deployment.getSpec().getReplicas();
+        int updated = valueOf(status.getUpdatedReplicas());
+        return updated >= desired
+                && valueOf(status.getReplicas()) <= updated
+                && valueOf(status.getAvailableReplicas()) >= updated;
+    }
+
+    static boolean isScheduled(Pod pod) {
+        if (pod.getStatus() == null || pod.getStatus().getConditions() == null) {
+            return false;
+        }
+        for (PodCondition condition : pod.getStatus().getConditions()) {
+            if ("PodScheduled".equals(condition.getType()) && "True".equals(condition.getStatus())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static boolean isImagePulled(Pod pod) {
+        if (pod.getStatus() == null || pod.getStatus().getContainerStatuses() == null) {
+            return false;
+        }
+        for (ContainerStatus containerStatus : pod.getStatus().getContainerStatuses()) {
+            if (!StringUtils.isEmpty(containerStatus.getImageID())
+                    || (containerStatus.getState() != null && containerStatus.getState().getRunning() != null)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int valueOf(Integer value) {
+        return value == null ? 0 : value;
+    }
+
+    private static String key(String cluster, String namespace, String serviceName) {
+        return cluster + "/" + namespace + "/" + serviceName;
+    }
+
+    public static class Rollout {
+        private final String key;
+        private final String serviceName;
+        private final DeployPhases phases;
+        private final long startMillis = System.currentTimeMillis();
+        private final CompletableFuture<Void> ready = new CompletableFuture<>();
+
+        private Rollout(String key, String serviceName, DeployPhases phases) {
+            this.key = key;
+            this.serviceName = serviceName;
+            this.phases = phases;
+        }
+
+        /**
+         * Completes the rollout when the given state is already rolled out, e.g. a redeploy that changed nothing.
+         */
+        public void check(Deployment deployment) {
+            if (!ready.isDone() && isRolledOut(deployment)) {
+                phases.mark(DeployPhases.READY);
+                ready.complete(null);
+            }
+        }
+    }
+
+    private class ClusterWatch {
+        private final String cluster;
+        private Watch deploymentWatch;
+        private Watch podWatch;
+        private String deploymentVersion;
+        private String podVersion;
+
+        private ClusterWatch(String cluster) {
+            this.cluster = cluster;
+        }
+
+        private synchronized void start() {
+            if (deploymentWatch == null) {
+                if (deploymentVersion == null) {
+                    deploymentVersion = kubernetesRepository.getDeploymentsResourceVersion(cluster);
+                }
+                log.info("Watching rollouts of cluster [{}] from resourceVersion {}", cluster, deploymentVersion);
+                deploymentWatch = kubernetesRepository.watchDeployments(cluster, deploymentVersion, new Watcher<Deployment>() {
+                    @Override
+                    public void eventReceived(Action action, Deployment deployment) {
+                        deploymentVersion = deployment.getMetadata().getResourceVersion();
+                        onDeployment(cluster, action, deployment);
+                    }
+
+                    @Override
+                    public void onClose(WatcherException e) {
+                        restart("Deployment", e);
+                    }
+                });
+            }
+            if (podWatch == null) {
+                if (podVersion == null) {
+                    podVersion = kubernetesRepository.getPodsResourceVersion(cluster);
+                }
+                podWatch = kubernetesRepository.watchPods(cluster, podVersion, new Watcher<Pod>() {
+                    @Override
+                    public void eventReceived(Action action, Pod pod) {
+                        podVersion = pod.getMetadata().getResourceVersion();
+                        onPod(cluster, action, pod);
+                    }
+
+                    @Override
+                    public void onClose(WatcherException e) {
+                        restart("Pod", e);
+                    }
+                });
+            }
+        }
+
+        private void restart(String kind, WatcherException e) {
+            log.warn("{} rollout watch of cluster [{}] closed, restarting in {} ms: {}", kind, cluster, retryInterval,
+                    e.getMessage());
+            synchronized (this) {
+                if ("Pod".equals(kind)) {
+                    podWatch = null;
+                    podVersion = e.isHttpGone() ? null : podVersion;
+                } else {
+                    deploymentWatch = null;
+                    deploymentVersion = e.isHttpGone() ? null : deploymentVersion;
+                }
+            }
+            scheduler.schedule(() -> {
+                try {
+                    start();
+                } catch (RuntimeException ex) {
+                    restart(kind, new WatcherException(ex.getMessage(), ex));
+                }
+            }, retryInterval, TimeUnit.MILLISECONDS);
+        }
+
+        private synchronized void close() {
+            if (deploymentWatch != null) {
+                deploymentWatch.close();
+            }
+            if (podWatch != null) {
+                podWatch.close();
+            }
+        }
+    }
+}
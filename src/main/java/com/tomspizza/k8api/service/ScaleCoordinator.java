@@ -0,0 +1,135 @@
+package com.tomspizza.k8api.service;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Merges scale requests for the same deployment into a single update. A request for a deployment with no
+ * other update pending or in flight is written at once; while one is, later requests are collected for one
+ * window and merged. The last requested replica count wins and every caller is completed with the count applied.
+ * Updates of one deployment never overlap, so an older count cannot overwrite a newer one.
+ */
+@Slf4j
+public class ScaleCoordinator {
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "scale-coordinator");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Map<Key, PendingScale> pending = new HashMap<>();
+
+    private final Map<Key, CompletableFuture<Integer>> inFlight = new HashMap<>();
+
+    private final long window;
+
+    private final Executor executor;
+
+    private final Writer writer;
+
+    public ScaleCoordinator(long window, Executor executor, Writer writer) {
+        this.window = window;
+        this.executor = executor;
+        this.writer = writer;
+    }
+
+    public synchronized CompletableFuture<Integer> submit(String cluster, String namespace, String serviceName, int replicas) {
+        Key key = new Key(cluster, namespace, serviceName);
+        PendingScale scale = pending.get(key);
+        if (scale == null) {
+            scale = new PendingScale();
+            pending.put(key, scale);
+            scheduler.schedule(() -> flush(key), inFlight.containsKey(key) ? window : 0L, TimeUnit.MILLISECONDS);
+        } else {
+            log.debug("Merging scale of [{}] to {} replicas with pending scale to {}", serviceName, replicas, scale.replicas);
+        }
+        scale.replicas = replicas;
+        CompletableFuture<Integer> future = new CompletableFuture<>();
+        scale.futures.add(future);
+        return future;
+    }
+
+    public void shutdown() {
+        scheduler.shutdown();
+    }
+
+    /**
+     * The write is chained under the lock but only started after it is released: the executor may run it on
+     * the calling thread when saturated, and the HTTP call must not block {@link #submit} callers.
+     */
+    private void flush(Key key) {
+        CompletableFuture<Void> start = new CompletableFuture<>();
+        PendingScale scale;
+        CompletableFuture<Integer> write;
+        synchronized (this) {
+            scale = pending.remove(key);
+            CompletableFuture<Integer> previous = inFlight.getOrDefault(key, CompletableFuture.completedFuture(null));
+            write = start.thenCompose(v -> previous.handle((r, e) -> null))
+                    .thenApplyAsync(v -> writer.scale(key.cluster, key.namespace, key.serviceName, scale.replicas), executor);
+            inFlight.put(key, write);
+        }
+
+        write.whenComplete((applied, e) -> {
+            synchronized (this) {
+                inFlight.remove(key, write);
+            }
+            if (e == null) {
+                scale.futures.forEach(f -> f.complete(applied));
+            } else {
+                scale.futures.forEach(f -> f.completeExceptionally(e));
+            }
+        });
+        start.complete(null);
+    }
+
+    public interface Writer {
+        int scale(String cluster, String namespace, String serviceName, int replicas);
+    }
+
+    private static class PendingScale {
+        private int replicas;
+        private final List<CompletableFuture<Integer>> futures = new ArrayList<>();
+    }
+
+    private static class Key {
+        private final String cluster;
+        private final String namespace;
+        private final String serviceName;
+
+        private Key(String cluster, String namespace, String serviceName) {
+            this.cluster = cluster;
+            this.namespace = namespace;
+            this.serviceName = serviceName;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return Objects.equals(cluster, key.cluster)
+                    && Objects.equals(namespace, key.namespace)
+                    && Objects.equals(serviceName, key.serviceName);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(cluster, namespace, serviceName);
+        }
+    }
+}
@@ -1,13 +1,15 @@
 package com.tomspizza.k8api.util;
 
-import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneOffset;
-import java.time.format.DateTimeFormatter;
+import java.util.concurrent.TimeUnit;
 
 public class DateUtil {
 
-    private static final DateTimeFormatter dtf = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss'Z'");
+    private static final String[] MINUTES = labels(60, "m");
+    private static final String[] HOURS = labels(24, "h");
+    private static final String[] DAYS = labels(1000, "d");
 
     public static String getAge(String time) {
         if (time == null) {
@@ -18,14 +20,39 @@ public class DateUtil {
     }
 
     public static String getAge(String time, LocalDateTime other) {
-        LocalDateTime start = LocalDateTime.parse(time, dtf);
-        Duration duration = Duration.between(start, other);
-        if (duration.toDays() > 0L) {
-            return duration.toDays() + "d";
+        return getAge(toEpochMillis(time), other.toInstant(ZoneOffset.UTC).toEpochMilli());
+    }
+
+    /**
+     * Same format as {@link #getAge(String)} but works on pre-parsed timestamps
+     * and returns shared strings for common values, so rendering allocates nothing.
+     */
+    public static String getAge(long startMillis, long nowMillis) {
+        long millis = nowMillis - startMillis;
+        long days = TimeUnit.MILLISECONDS.toDays(millis);
+        if (days > 0L) {
+            return label(DAYS, days, "d");
+        }
+        long hours = TimeUnit.MILLISECONDS.toHours(millis);
+        if (hours > 0L) {
+            return label(HOURS, hours, "h");
         }
-        if (duration.toHours() > 0L) {
-            return duration.toHours() + "h";
+        return label(MINUTES, TimeUnit.MILLISECONDS.toMinutes(millis), "m");
+    }
+
+    public static long toEpochMillis(String time) {
+        return Instant.parse(time).toEpochMilli();
+    }
+
+    private static String label(String[] labels, long value, String unit) {
+        return value >= 0L && value < labels.length ? labels[(int) value] : value + unit;
+    }
+
+    private static String[] labels(int size, String unit) {
+        String[] labels = new String[size];
+        for (int i = 0; i < size; i++) {
+            labels[i] = i + unit;
         }
-        return duration.toMinutes() + "m";
+        return labels;
     }
 }
@@ -0,0 +1,56 @@
+package com.tomspizza.k8api.util;
+
+import io.fabric8.kubernetes.api.model.HasMetadata;
+import io.fabric8.kubernetes.api.model.ObjectMeta;
+
+import java.util.Collection;
+
+public class ETagUtil {
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private ETagUtil() {
+    }
+
+    /**
+     * Weak ETag over the UID and resourceVersion of each item plus the given values (filters, URLs).
+     * Items are combined order-independently, so a cache and a direct list give the same tag.
+     * Uptime is not part of the tag: it changes with time, not with the resources.
+     */
+    public static String of(Collection<? extends HasMetadata> items, String... values) {
+        long sum = 0L;
+        long xor = 0L;
+        for (HasMetadata item : items) {
+            ObjectMeta metadata = item.getMetadata();
+            long hash = mix(hash(hash(FNV_OFFSET, metadata.getUid()), metadata.getResourceVersion()));
+            sum += hash;
+            xor ^= hash;
+        }
+
+        long hash = hash(FNV_OFFSET, String.valueOf(items.size()));
+        for (String value : values) {
+            hash = hash(hash, value);
+        }
+        return String.format("W/\"%016x%016x%016x\"", mix(hash), sum, xor);
+    }
+
+    private static long hash(long hash, String value) {
+        if (value == null) {
+            return (hash ^ 0xff) * FNV_PRIME;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            hash = (hash ^ value.charAt(i)) * FNV_PRIME;
+        }
+        return (hash ^ 0xfe) * FNV_PRIME;
+    }
+
+    private static long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -0,0 +1,175 @@
+package com.tomspizza.k8api.cache;
+
+import com.tomspizza.k8api.cluster.ClusterRegistry;
+import com.tomspizza.k8api.metrics.KubernetesMetrics;
+import com.tomspizza.k8api.repository.KubernetesRepository;
+import io.fabric8.kubernetes.api.model.apps.Deployment;
+import io.fabric8.kubernetes.api.model.apps.DeploymentBuilder;
+import io.fabric8.kubernetes.client.DefaultKubernetesClient;
+import io.fabric8.kubernetes.client.informers.ResourceEventHandler;
+import io.fabric8.kubernetes.client.server.mock.KubernetesServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.Assert;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+public class DeploymentCacheTest {
+
+    private final KubernetesServer server = new KubernetesServer(false, true);
+
+    private DeploymentCache cache;
+
+    @BeforeEach
+    public void setUp() {
+        server.before();
+        InformerStarter informerStarter = new InformerStarter();
+        ReflectionTestUtils.setField(informerStarter, "retryInterval", 100L);
+        cache = new DeploymentCache((DefaultKubernetesClient) server.getClient(), informerStarter,
+                new DeploymentProjectionCache(0));
+        ReflectionTestUtils.setField(cache, "enabled", true);
+        ReflectionTestUtils.setField(cache, "resyncPeriod", 1000L);
+        ReflectionTestUtils.setField(cache, "maxStaleness", 3000L);
+        createDeployment("a", "shop");
+        createDeployment("b", "shop");
+        createDeployment("c", "blog");
+    }
+
+    @AfterEach
+    public void tearDown() {
+        cache.stop();
+        server.after();
+    }
+
+    @Test
+    public void testServesFromStoreOnceSynced() {
+        DeploymentCacheHealthIndicator health = new DeploymentCacheHealthIndicator(cache);
+        Assert.assertEquals(Status.OUT_OF_SERVICE, health.health().getStatus());
+        Assert.assertEquals(-1L, cache.getStalenessMillis());
+
+        cache.start();
+        await(cache::isReady);
+        Assert.assertEquals(3, cache.size());
+        Assert.assertEquals(2, cache.listByApp("shop").size());
+        Assert.assertEquals(3, cache.listByNamespace("default").size());
+        Assert.assertEquals(Status.UP, health.health().getStatus());
+    }
+
+    @Test
+    public void testStalenessIsResetByResyncOnQuietCluster() throws Exception {
+        cache.start();
+        await(cache::isReady);
+        await(cache::isWatching);
+
+        Thread.sleep(3500);
+        Assert.assertTrue(cache.getStalenessMillis() >= 0);
+        Assert.assertTrue(cache.getStalenessMillis() < 2000);
+        Assert.assertTrue(cache.isFresh());
+    }
+
+    @Test
+    public void testStaleCacheListsDirectly() {
+        ClusterRegistry clusterRegistry = new ClusterRegistry("default", Collections.singletonList(
+                new ClusterRegistry.Cluster("default", (DefaultKubernetesClient) server.getClient(), 1000)));
+        InformerStarter informerStarter = new InformerStarter();
+        KubernetesRepository repository = new KubernetesRepository(clusterRegistry, cache,
+                new IngressAddressCache(clusterRegistry, informerStarter),
+                new NamespaceCache(clusterRegistry, informerStarter), new KubernetesMetrics(new SimpleMeterRegistry()));
+        cache.start();
+        await(cache::isReady);
+
+        int requests = server.getMockServer().getRequestCount();
+        Assert.assertEquals(3, repository.getDeployments(null, null, null).size());
+        Assert.assertEquals(requests, server.getMockServer().getRequestCount());
+
+        // synced once, but the watch has not delivered anything for longer than maxStaleness
+        ReflectionTestUtils.setField(cache, "lastSyncTime", System.currentTimeMillis() - 10000L);
+        Assert.assertFalse(cache.isFresh());
+        Assert.assertEquals(3, repository.getDeployments(null, null, null).size());
+        Assert.assertEquals(requests + 1, server.getMockServer().getRequestCount());
+    }
+
+    @Test
+    public void testEventHandlerSharesInformer() {
+        Set<String> early = ConcurrentHashMap.newKeySet();
+        Set<String> late = ConcurrentHashMap.newKeySet();
+        cache.addEventHandler(names(early));
+        cache.start();
+        await(cache::isReady);
+        cache.addEventHandler(names(late));
+
+        await(() -> early.size() == 3 && late.size() == 3);
+        int lists = 0;
+        for (RecordedRequest request = takeRequest(); request != null; request = takeRequest()) {
+            if (request.getPath().startsWith("/apis/apps/v1/deployments") && !request.getPath().contains("watch=true")) {
+                lists++;
+            }
+        }
+        Assert.assertEquals(1, lists);
+    }
+
+    @Test
+    public void testDisabledCacheIsUp() {
+        ReflectionTestUtils.setField(cache, "enabled", false);
+        cache.start();
+        Assert.assertFalse(cache.isReady());
+        Assert.assertEquals(Status.UP, new DeploymentCacheHealthIndicator(cache).health().getStatus());
+    }
+
+    private void createDeployment(String name, String app) {
+        server.getClient().apps().deployments().inNamespace("default").create(new DeploymentBuilder()
+                .withNewMetadata().withName(name).addToLabels("app", app).endMetadata()
+                .build());
+    }
+
+    private static ResourceEventHandler<Deployment> names(Set<String> names) {
+        return new ResourceEventHandler<Deployment>() {
+            @Override
+            public void onAdd(Deployment deployment) {
+                names.add(deployment.getMetadata().getName());
+            }
+
+            @Override
+            public void onUpdate(Deployment oldDeployment, Deployment newDeployment) {
+            }
+
+            @Override
+            public void onDelete(Deployment deployment, boolean deletedFinalStateUnknown) {
+                names.remove(deployment.getMetadata().getName());
+            }
+        };
+    }
+
+    private RecordedRequest takeRequest() {
+        try {
+            return server.getMockServer().takeRequest(100, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void await(BooleanSupplier condition) {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean()) {
+            Assert.assertTrue(System.currentTimeMillis() < deadline);
+            sleep(20);
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.tomspizza.k8api.cache;
+
+import com.tomspizza.k8api.dto.DeploymentDto;
+import io.fabric8.kubernetes.api.model.apps.Deployment;
+import io.fabric8.kubernetes.api.model.apps.DeploymentBuilder;
+import org.junit.Assert;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+
+public class DeploymentProjectionCacheTest {
+
+    private static final String URL = "http://10.0.0.1";
+
+    @Test
+    public void testReuseUntilChanged() {
+        DeploymentProjectionCache cache = new DeploymentProjectionCache(10);
+        DeploymentDto dto = cache.get(deployment("uid-1", "1"), "default", URL);
+
+        Assert.assertSame(dto, cache.get(deployment("uid-1", "1"), "default", URL));
+        Assert.assertNotSame(dto, cache.get(deployment("uid-1", "2"), "default", URL));
+        Assert.assertEquals("other", cache.get(deployment("uid-1", "2"), "other", URL).getCluster());
+        Assert.assertEquals("http://10.0.0.2/service", cache.get(deployment("uid-1", "2"), "default", "http://10.0.0.2").getUrl());
+    }
+
+    @Test
+    public void testEvict() {
+        DeploymentProjectionCache cache = new DeploymentProjectionCache(2);
+        cache.get(deployment("uid-1", "1"), "default", URL, cache.nextGeneration());
+        cache.get(deployment("uid-2", "1"), "default", URL);
+
+        long pass = cache.nextGeneration();
+        cache.get(deployment("uid-3", "1"), "default", URL, pass);
+        Assert.assertEquals(1, cache.size());
+
+        cache.retain(Collections.emptyList());
+        Assert.assertEquals(0, cache.size());
+    }
+
+    private static Deployment deployment(String uid, String resourceVersion) {
+        return new DeploymentBuilder()
+                .withNewMetadata().withName("service").withNamespace("default").withUid(uid)
+                .withResourceVersion(resourceVersion).withCreationTimestamp("2021-08-06T21:15:08Z").endMetadata()
+                .withNewSpec().withNewTemplate().withNewSpec().addNewContainer().withImage("nginx").endContainer()
+                .endSpec().endTemplate().endSpec()
+                .build();
+    }
+}
@@ -0,0 +1,31 @@
+package com.tomspizza.k8api.cache;
+
+import io.fabric8.kubernetes.api.model.Service;
+import io.fabric8.kubernetes.api.model.ServiceBuilder;
+import org.junit.Assert;
+import org.junit.jupiter.api.Test;
+
+public class IngressAddressCacheTest {
+
+    @Test
+    public void testResolveIp() {
+        Service service = new ServiceBuilder()
+                .withNewStatus().withNewLoadBalancer().addNewIngress().withIp("10.0.0.1").endIngress().endLoadBalancer().endStatus()
+                .build();
+        Assert.assertEquals("10.0.0.1", IngressAddressCache.resolveAddress(service));
+    }
+
+    @Test
+    public void testResolveHostname() {
+        Service service = new ServiceBuilder()
+                .withNewStatus().withNewLoadBalancer().addNewIngress().withHostname("abc.elb.amazonaws.com").endIngress().endLoadBalancer().endStatus()
+                .build();
+        Assert.assertEquals("abc.elb.amazonaws.com", IngressAddressCache.resolveAddress(service));
+    }
+
+    @Test
+    public void testResolvePending() {
+        Service service = new ServiceBuilder().withNewStatus().withNewLoadBalancer().endLoadBalancer().endStatus().build();
+        Assert.assertNull(IngressAddressCache.resolveAddress(service));
+    }
+}
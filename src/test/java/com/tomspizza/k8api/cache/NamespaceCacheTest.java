@@ -0,0 +1,66 @@
+package com.tomspizza.k8api.cache;
+
+import com.tomspizza.k8api.cluster.ClusterRegistry;
+import io.fabric8.kubernetes.api.model.Namespace;
+import io.fabric8.kubernetes.api.model.NamespaceBuilder;
+import org.junit.Assert;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class NamespaceCacheTest {
+
+    private final NamespaceCache cache = new NamespaceCache(
+            new ClusterRegistry("default", Collections.singletonList(new ClusterRegistry.Cluster("default", null, 1000))),
+            new InformerStarter());
+
+    @Test
+    public void testConcurrentMissesShareOneLoad() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Namespace> first = CompletableFuture.supplyAsync(() -> cache.get(null, "ns", () -> {
+            loads.incrementAndGet();
+            started.countDown();
+            await(release);
+            return new NamespaceBuilder().withNewMetadata().withName("ns").endMetadata().build();
+        }));
+        Assert.assertTrue(started.await(5, TimeUnit.SECONDS));
+        CompletableFuture<Namespace> second = CompletableFuture.supplyAsync(() -> cache.get("default", "ns", () -> {
+            loads.incrementAndGet();
+            return null;
+        }));
+        Thread.sleep(100);
+        release.countDown();
+
+        Assert.assertEquals("ns", first.get(5, TimeUnit.SECONDS).getMetadata().getName());
+        Assert.assertSame(first.get(), second.get(5, TimeUnit.SECONDS));
+        Assert.assertEquals(1, loads.get());
+        Assert.assertEquals(2, cache.getMisses());
+    }
+
+    @Test
+    public void testFailedLoadIsNotKept() {
+        try {
+            cache.get(null, "ns", () -> {
+                throw new IllegalStateException("forbidden");
+            });
+            Assert.fail();
+        } catch (IllegalStateException e) {
+            Assert.assertEquals("forbidden", e.getMessage());
+        }
+        Assert.assertNotNull(cache.get(null, "ns", () -> new NamespaceBuilder().withNewMetadata().withName("ns").endMetadata().build()));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
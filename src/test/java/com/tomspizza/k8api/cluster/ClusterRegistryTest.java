@@ -0,0 +1,121 @@
+package com.tomspizza.k8api.cluster;
+
+import io.fabric8.kubernetes.api.model.apps.DeploymentBuilder;
+import io.fabric8.kubernetes.client.DefaultKubernetesClient;
+import io.fabric8.kubernetes.client.server.mock.KubernetesServer;
+import org.junit.Assert;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+public class ClusterRegistryTest {
+
+    private final KubernetesServer east = new KubernetesServer(false, true);
+
+    private final KubernetesServer west = new KubernetesServer(false, true);
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(2);
+
+    private ClusterRegistry registry;
+
+    @BeforeEach
+    public void setUp() {
+        east.before();
+        west.before();
+        registry = new ClusterRegistry("east", Arrays.asList(
+                new ClusterRegistry.Cluster("east", (DefaultKubernetesClient) east.getClient(), 2000),
+                new ClusterRegistry.Cluster("west", (DefaultKubernetesClient) west.getClient(), 200)));
+        createDeployment("east", "a");
+        createDeployment("west", "b");
+        createDeployment("west", "c");
+    }
+
+    @AfterEach
+    public void tearDown() {
+        executor.shutdownNow();
+        east.after();
+        west.after();
+    }
+
+    @Test
+    public void testFanOut() {
+        ClusterResults<Integer> results = registry.fanOut(this::countDeployments, executor);
+
+        Assert.assertFalse(results.isPartial());
+        Assert.assertEquals(Integer.valueOf(1), results.getResults().get("east"));
+        Assert.assertEquals(Integer.valueOf(2), results.getResults().get("west"));
+    }
+
+    @Test
+    public void testPartialResults() {
+        ClusterResults<Integer> results = registry.fanOut(cluster -> {
+            if ("west".equals(cluster)) {
+                sleep(1000);
+            }
+            return countDeployments(cluster);
+        }, executor);
+
+        Assert.assertEquals(Integer.valueOf(1), results.getResults().get("east"));
+        Assert.assertTrue(results.getFailures().get("west") instanceof TimeoutException);
+    }
+
+    @Test
+    public void testRejectedClusterFails() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService full = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new SynchronousQueue<>(),
+                new ThreadPoolExecutor.AbortPolicy());
+        full.execute(() -> await(release));
+        try {
+            ClusterResults<Integer> results = registry.fanOut(this::countDeployments, full);
+
+            Assert.assertTrue(results.getResults().isEmpty());
+            Assert.assertTrue(results.getFailures().get("east") instanceof RejectedExecutionException);
+            Assert.assertTrue(results.getFailures().get("west") instanceof RejectedExecutionException);
+        } finally {
+            release.countDown();
+            full.shutdown();
+        }
+    }
+
+    @Test
+    public void testDefaultCluster() {
+        Assert.assertEquals("east", registry.resolve(null));
+        Assert.assertEquals(2, countDeployments("west"));
+    }
+
+    private int countDeployments(String cluster) {
+        return registry.getClient(cluster).apps().deployments().inAnyNamespace().list().getItems().size();
+    }
+
+    private void createDeployment(String cluster, String name) {
+        registry.getClient(cluster).apps().deployments().inNamespace("default").create(new DeploymentBuilder()
+                .withNewMetadata().withName(name).endMetadata()
+                .build());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
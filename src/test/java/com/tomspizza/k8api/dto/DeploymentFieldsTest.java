@@ -0,0 +1,46 @@
+package com.tomspizza.k8api.dto;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tomspizza.k8api.exception.ServiceException;
+import io.fabric8.kubernetes.api.model.apps.Deployment;
+import io.fabric8.kubernetes.api.model.apps.DeploymentBuilder;
+import org.junit.Assert;
+import org.junit.jupiter.api.Test;
+
+public class DeploymentFieldsTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().setFilterProvider(DeploymentFields.ALL);
+
+    @Test
+    public void testProjection() throws Exception {
+        DeploymentDto dto = new DeploymentDto(deployment(), "http://10.0.0.1");
+
+        String projected = objectMapper.writer(DeploymentFields.of("serviceName, replicas")).writeValueAsString(dto);
+        Assert.assertEquals("{\"serviceName\":\"service\",\"replicas\":2}", projected);
+
+        String all = objectMapper.writeValueAsString(dto);
+        Assert.assertTrue(all.contains("\"uptime\":"));
+        Assert.assertTrue(all.contains("\"url\":\"http://10.0.0.1/service\""));
+        Assert.assertNull(DeploymentFields.of(" "));
+    }
+
+    @Test
+    public void testUnknownField() {
+        try {
+            DeploymentFields.of("serviceName,status");
+            Assert.fail();
+        } catch (ServiceException e) {
+            Assert.assertTrue(e.getMessage().contains("[status]"));
+        }
+    }
+
+    private static Deployment deployment() {
+        return new DeploymentBuilder()
+                .withNewMetadata().withName("service").withNamespace("default").withUid("uid-1")
+                .withCreationTimestamp("2021-08-06T21:15:08Z").endMetadata()
+                .withNewSpec().withNewTemplate().withNewSpec().addNewContainer().withImage("nginx").endContainer()
+                .endSpec().endTemplate().endSpec()
+                .withNewStatus().withReplicas(2).endStatus()
+                .build();
+    }
+}
@@ -0,0 +1,59 @@
+package com.tomspizza.k8api.dto;
+
+import org.junit.Assert;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+public class OperationDtoTest {
+
+    @Test
+    public void testListenersRunOutsideTheLock() {
+        OperationDto operation = new OperationDto("1", "deploy", new K8sDto());
+        List<Boolean> locked = new ArrayList<>();
+        operation.subscribe(o -> locked.add(Thread.holdsLock(o)));
+
+        operation.start();
+        operation.step("namespace");
+        operation.succeed();
+
+        Assert.assertEquals(4, locked.size());
+        Assert.assertFalse(locked.contains(true));
+    }
+
+    @Test
+    public void testFailingListenerIsUnsubscribed() {
+        OperationDto operation = new OperationDto("1", "deploy", new K8sDto());
+        List<String> states = new ArrayList<>();
+        Consumer<OperationDto> failing = o -> {
+            if (o.getState() == OperationDto.State.RUNNING) {
+                throw new IllegalStateException("ResponseBodyEmitter has already completed");
+            }
+        };
+        operation.subscribe(failing);
+        operation.subscribe(o -> states.add(o.getState().name()));
+
+        operation.start();
+        operation.step("namespace");
+        operation.succeed();
+
+        Assert.assertEquals(OperationDto.State.SUCCEEDED, operation.getState());
+        Assert.assertEquals(1, operation.getSteps().size());
+        Assert.assertTrue(operation.getListeners().isEmpty());
+        Assert.assertEquals("SUCCEEDED", states.get(states.size() - 1));
+    }
+
+    @Test
+    public void testSubscribeAfterDone() {
+        OperationDto operation = new OperationDto("1", "deploy", new K8sDto());
+        operation.fail("forbidden");
+        List<String> messages = new ArrayList<>();
+        operation.subscribe(o -> messages.add(o.getMessage()));
+
+        Assert.assertEquals(1, messages.size());
+        Assert.assertEquals("forbidden", messages.get(0));
+        Assert.assertTrue(operation.getListeners().isEmpty());
+    }
+}
@@ -0,0 +1,46 @@
+package com.tomspizza.k8api.dto;
+
+import io.fabric8.kubernetes.api.model.Pod;
+import io.fabric8.kubernetes.api.model.PodBuilder;
+import io.fabric8.kubernetes.api.model.apps.DeploymentBuilder;
+import org.junit.Assert;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+
+public class PodDtoTest {
+
+    @Test
+    public void testCrashLoopingPod() {
+        Pod pod = new PodBuilder()
+                .withNewMetadata().withName("service-7d4b9-x2x9z").endMetadata()
+                .withNewStatus().withPhase("Running")
+                .addNewCondition().withType("Ready").withStatus("False").endCondition()
+                .addNewContainerStatus().withRestartCount(3)
+                .withNewState().withNewWaiting().withReason("CrashLoopBackOff").endWaiting().endState()
+                .endContainerStatus()
+                .addNewContainerStatus().withRestartCount(1).endContainerStatus()
+                .endStatus()
+                .build();
+
+        PodDto dto = new PodDto(pod);
+        Assert.assertEquals("Running", dto.getPhase());
+        Assert.assertEquals(4, dto.getRestarts());
+        Assert.assertFalse(dto.isReady());
+        Assert.assertEquals("CrashLoopBackOff", dto.getReason());
+    }
+
+    @Test
+    public void testWithPodsCopies() {
+        DeploymentDto cached = new DeploymentDto(new DeploymentBuilder()
+                .withNewMetadata().withName("service").withNamespace("default").endMetadata()
+                .withNewSpec().withNewTemplate().withNewSpec().addNewContainer().withImage("nginx").endContainer()
+                .endSpec().endTemplate().endSpec()
+                .build(), "http://10.0.0.1");
+
+        DeploymentDto withPods = cached.withPods(Collections.emptyList());
+        Assert.assertNull(cached.getPods());
+        Assert.assertEquals(0, withPods.getPods().size());
+        Assert.assertEquals("http://10.0.0.1/service", withPods.getUrl());
+    }
+}
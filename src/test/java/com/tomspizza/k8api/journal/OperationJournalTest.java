@@ -0,0 +1,108 @@
+package com.tomspizza.k8api.journal;
+
+import com.tomspizza.k8api.dto.DeployDto;
+import org.junit.Assert;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+public class OperationJournalTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void testResumesOnlyIncompleteOperations() throws Exception {
+        OperationJournal journal = new OperationJournal(directory, 4096);
+        journal.open();
+        JournalEntry deploy = journal.begin(JournalOperation.deploy("default", deployDto("a")));
+        deploy.step("namespace");
+        deploy.step("deployment");
+        journal.begin(JournalOperation.deploy("default", deployDto("b"))).end();
+        journal.begin(JournalOperation.deploy("default", deployDto("c")));
+        journal.begin(JournalOperation.delete("default", deployDto("c")));
+        journal.close();
+
+        OperationJournal reopened = new OperationJournal(directory, 4096);
+        reopened.open();
+        List<JournalOperation> incomplete = reopened.getIncomplete();
+        Assert.assertEquals(2, incomplete.size());
+        Assert.assertEquals("a", incomplete.get(0).getServiceName());
+        Assert.assertEquals("nginx", incomplete.get(0).getImage());
+        Assert.assertTrue(reopened.resume(incomplete.get(0)).isDone("deployment"));
+        Assert.assertFalse(reopened.resume(incomplete.get(0)).isDone("service"));
+        Assert.assertEquals(JournalOperation.Type.DELETE, incomplete.get(1).getType());
+        Assert.assertEquals(2, reopened.getOpenCount());
+        reopened.resume(incomplete.get(0)).end();
+        reopened.resume(incomplete.get(1)).end();
+        reopened.close();
+
+        OperationJournal finished = new OperationJournal(directory, 4096);
+        finished.open();
+        Assert.assertTrue(finished.getIncomplete().isEmpty());
+        finished.close();
+    }
+
+    @Test
+    public void testCompactsFinishedSegments() throws Exception {
+        OperationJournal journal = new OperationJournal(directory, 256);
+        journal.open();
+        JournalEntry first = journal.begin(JournalOperation.delete("default", deployDto("first")));
+        for (int i = 0; i < 20; i++) {
+            journal.begin(JournalOperation.delete("default", deployDto("s" + i))).end();
+        }
+        // the finished segments are kept behind the one holding the open operation
+        Assert.assertTrue(journal.getSegmentCount() > 2);
+        Assert.assertEquals(journal.getSegmentCount(), countFiles());
+
+        first.end();
+        Assert.assertEquals(1, journal.getSegmentCount());
+        Assert.assertEquals(1, countFiles());
+        Assert.assertTrue(journal.getSyncCount() > 0);
+        journal.close();
+    }
+
+    @Test
+    public void testReopenAfterCompaction() throws Exception {
+        OperationJournal journal = new OperationJournal(directory, 256);
+        journal.open();
+        JournalEntry ended = journal.begin(JournalOperation.deploy("default", deployDto("ended")));
+        JournalEntry running = journal.begin(JournalOperation.deploy("default", deployDto("running")));
+        for (int i = 0; i < 10; i++) {
+            journal.begin(JournalOperation.delete("default", deployDto("s" + i))).end();
+        }
+        // both records land in a later segment than the operations they belong to
+        ended.end();
+        running.step("namespace");
+        for (int i = 10; i < 20; i++) {
+            journal.begin(JournalOperation.delete("default", deployDto("s" + i))).end();
+        }
+        journal.close();
+
+        OperationJournal reopened = new OperationJournal(directory, 256);
+        reopened.open();
+        List<JournalOperation> incomplete = reopened.getIncomplete();
+        Assert.assertEquals(1, incomplete.size());
+        Assert.assertEquals("running", incomplete.get(0).getServiceName());
+        Assert.assertTrue(reopened.resume(incomplete.get(0)).isDone("namespace"));
+        reopened.close();
+    }
+
+    private long countFiles() throws Exception {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.count();
+        }
+    }
+
+    private static DeployDto deployDto(String serviceName) {
+        DeployDto deployDto = new DeployDto();
+        deployDto.setNamespace("ns");
+        deployDto.setServiceName(serviceName);
+        deployDto.setImage("nginx");
+        return deployDto;
+    }
+}
@@ -0,0 +1,141 @@
+package com.tomspizza.k8api.metrics;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Assert;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.util.StreamUtils;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+
+public class ListEncodingFilterTest {
+
+    private static final String BODY = "[{\"serviceName\":\"a\"},{\"serviceName\":\"b\"}]";
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private final FilterChain chain = (request, response) -> {
+        byte[] body = BODY.getBytes(StandardCharsets.UTF_8);
+        response.setContentType("application/json");
+        response.setContentLength(body.length);
+        response.getOutputStream().write(body);
+    };
+
+    @Test
+    public void testGzipWhenAccepted() throws Exception {
+        MockHttpServletResponse response = filter(true, "deflate, gzip");
+
+        Assert.assertEquals("gzip", response.getHeader(HttpHeaders.CONTENT_ENCODING));
+        Assert.assertNull(response.getHeader(HttpHeaders.CONTENT_LENGTH));
+        Assert.assertEquals(BODY, gunzip(response.getContentAsByteArray()));
+        Assert.assertTrue(response.getHeaders(HttpHeaders.VARY).contains(HttpHeaders.ACCEPT));
+        Assert.assertTrue(response.getHeaders(HttpHeaders.VARY).contains(HttpHeaders.ACCEPT_ENCODING));
+        Assert.assertEquals(response.getContentAsByteArray().length, registry.get("k8s.list.payload")
+                .tags("format", "json", "encoding", "gzip").summary().totalAmount(), 0.0);
+    }
+
+    @Test
+    public void testIdentityWhenRefused() throws Exception {
+        MockHttpServletResponse response = filter(true, "gzip;q=0, identity");
+
+        Assert.assertNull(response.getHeader(HttpHeaders.CONTENT_ENCODING));
+        Assert.assertEquals(BODY.length(), response.getContentLength());
+        Assert.assertEquals(BODY, response.getContentAsString());
+        Assert.assertEquals(1, registry.get("k8s.list.payload")
+                .tags("format", "json", "encoding", "identity").summary().count());
+    }
+
+    @Test
+    public void testCompressionDisabled() throws Exception {
+        MockHttpServletResponse response = filter(false, "gzip");
+
+        Assert.assertNull(response.getHeader(HttpHeaders.CONTENT_ENCODING));
+        Assert.assertEquals(BODY, response.getContentAsString());
+        Assert.assertEquals(1, response.getHeaders(HttpHeaders.VARY).size());
+        Assert.assertEquals(HttpHeaders.ACCEPT, response.getHeader(HttpHeaders.VARY));
+    }
+
+    @Test
+    public void testAcceptsGzip() {
+        Assert.assertTrue(ListEncodingFilter.acceptsGzip("gzip"));
+        Assert.assertTrue(ListEncodingFilter.acceptsGzip("br, GZIP;q=0.5"));
+        Assert.assertTrue(ListEncodingFilter.acceptsGzip("*"));
+        Assert.assertFalse(ListEncodingFilter.acceptsGzip("gzip;q=0.000"));
+        Assert.assertFalse(ListEncodingFilter.acceptsGzip("*;q=0"));
+        Assert.assertFalse(ListEncodingFilter.acceptsGzip("br"));
+        Assert.assertFalse(ListEncodingFilter.acceptsGzip(null));
+    }
+
+    @Test
+    public void testWriteListenerReachesContainerStream() throws Exception {
+        RecordingStream container = new RecordingStream();
+        HttpServletResponse response = new HttpServletResponseWrapper(new MockHttpServletResponse()) {
+            @Override
+            public ServletOutputStream getOutputStream() {
+                return container;
+            }
+        };
+        WriteListener listener = new WriteListener() {
+            @Override
+            public void onWritePossible() {
+            }
+
+            @Override
+            public void onError(Throwable t) {
+            }
+        };
+
+        new ListEncodingFilter(registry, true).doFilter(request("gzip"), response, (req, res) -> {
+            res.getOutputStream().setWriteListener(listener);
+            Assert.assertFalse(res.getOutputStream().isReady());
+        });
+
+        Assert.assertSame(listener, container.listener);
+    }
+
+    private MockHttpServletResponse filter(boolean compression, String acceptEncoding) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        new ListEncodingFilter(registry, compression).doFilter(request(acceptEncoding), response, chain);
+        return response;
+    }
+
+    private static MockHttpServletRequest request(String acceptEncoding) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/k8s/list");
+        request.addHeader(HttpHeaders.ACCEPT_ENCODING, acceptEncoding);
+        return request;
+    }
+
+    private static String gunzip(byte[] bytes) throws IOException {
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(bytes))) {
+            return StreamUtils.copyToString(in, StandardCharsets.UTF_8);
+        }
+    }
+
+    private static class RecordingStream extends ServletOutputStream {
+        private WriteListener listener;
+
+        @Override
+        public void write(int b) {
+        }
+
+        @Override
+        public boolean isReady() {
+            return listener == null;
+        }
+
+        @Override
+        public void setWriteListener(WriteListener writeListener) {
+            this.listener = writeListener;
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.tomspizza.k8api.metrics;
+
+import com.tomspizza.k8api.cache.DeploymentCache;
+import com.tomspizza.k8api.cache.DeploymentProjectionCache;
+import com.tomspizza.k8api.cache.IngressAddressCache;
+import com.tomspizza.k8api.cache.InformerStarter;
+import com.tomspizza.k8api.cache.NamespaceCache;
+import com.tomspizza.k8api.cluster.ClusterRegistry;
+import com.tomspizza.k8api.journal.OperationJournal;
+import com.tomspizza.k8api.repository.KubernetesRepository;
+import com.tomspizza.k8api.service.DeploymentWatchHub;
+import com.tomspizza.k8api.service.IngressReconciler;
+import com.tomspizza.k8api.service.KubernetesService;
+import com.tomspizza.k8api.service.OperationRegistry;
+import io.fabric8.kubernetes.api.model.ServiceBuilder;
+import io.fabric8.kubernetes.api.model.ServiceListBuilder;
+import io.fabric8.kubernetes.api.model.apps.DeploymentBuilder;
+import io.fabric8.kubernetes.client.DefaultKubernetesClient;
+import io.fabric8.kubernetes.client.KubernetesClientException;
+import io.fabric8.kubernetes.client.server.mock.KubernetesServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Assert;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Collections;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+public class RepositoryMetricsAspectTest {
+
+    private final KubernetesServer server = new KubernetesServer(false, false);
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    private ClusterRegistry clusterRegistry;
+
+    private KubernetesMetrics metrics;
+
+    private KubernetesRepository target;
+
+    private KubernetesRepository repository;
+
+    @BeforeEach
+    public void setUp() {
+        server.before();
+        DefaultKubernetesClient client = (DefaultKubernetesClient) server.getClient();
+        clusterRegistry = new ClusterRegistry("default", Collections.singletonList(
+                new ClusterRegistry.Cluster("default", client, 1000)));
+        InformerStarter informerStarter = new InformerStarter();
+        metrics = new KubernetesMetrics(meterRegistry);
+        ReflectionTestUtils.setField(metrics, "namespaceTag", true);
+        target = new KubernetesRepository(clusterRegistry,
+                new DeploymentCache(client, informerStarter, new DeploymentProjectionCache(100)),
+                new IngressAddressCache(clusterRegistry, informerStarter),
+                new NamespaceCache(clusterRegistry, informerStarter), metrics);
+        ReflectionTestUtils.setField(target, "patchEnabled", true);
+
+        AspectJProxyFactory factory = new AspectJProxyFactory(target);
+        factory.setProxyTargetClass(true);
+        factory.addAspect(new RepositoryMetricsAspect(metrics));
+        repository = factory.getProxy();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        executor.shutdownNow();
+        server.after();
+    }
+
+    @Test
+    public void testRecordsEachCallWithTags() {
+        server.expect().patch().withPath("/apis/apps/v1/namespaces/ns/deployments/a")
+                .andReturn(200, new DeploymentBuilder().withNewMetadata().withName("a").endMetadata().build())
+                .once();
+        server.expect().patch().withPath("/apis/apps/v1/namespaces/ns/deployments/a")
+                .andReturn(404, "").once();
+
+        repository.scalePod(null, "ns", "a", 2);
+        try {
+            repository.scalePod(null, "ns", "a", 3);
+            Assert.fail();
+        } catch (KubernetesClientException e) {
+            Assert.assertEquals(404, e.getCode());
+        }
+
+        Assert.assertEquals(1, meterRegistry.get("k8s.api.calls")
+                .tags("operation", "scalePod", "namespace", "ns", "outcome", "success").timer().count());
+        Assert.assertEquals(1, meterRegistry.get("k8s.api.calls")
+                .tags("operation", "scalePod", "namespace", "ns", "outcome", "error").timer().count());
+        Assert.assertEquals(1.0, meterRegistry.get("k8s.api.errors")
+                .tags("operation", "scalePod", "error", "404").counter().count(), 0.0);
+    }
+
+    @Test
+    public void testRecordsListItems() {
+        ReflectionTestUtils.setField(metrics, "namespaceTag", false);
+        server.expect().get().withPath("/api/v1/namespaces/ns/services?labelSelector=app%3Da")
+                .andReturn(200, new ServiceListBuilder()
+                        .addToItems(new ServiceBuilder().withNewMetadata().withName("a").endMetadata().build())
+                        .addToItems(new ServiceBuilder().withNewMetadata().withName("b").endMetadata().build())
+                        .build())
+                .once();
+
+        Assert.assertEquals(2, repository.getServiceNames(null, "ns", "app=a").size());
+
+        Assert.assertEquals(1, meterRegistry.get("k8s.api.calls")
+                .tags("operation", "getServiceNames", "namespace", "none").timer().count());
+        Assert.assertEquals(2.0, meterRegistry.get("k8s.api.list.items")
+                .tag("operation", "getServiceNames").summary().totalAmount(), 0.0);
+    }
+
+    @Test
+    public void testBindsClientAndCacheGauges() {
+        InformerStarter informerStarter = new InformerStarter();
+        DefaultKubernetesClient client = clusterRegistry.getClient("default");
+        DeploymentProjectionCache projectionCache = new DeploymentProjectionCache(100);
+        DeploymentCache deploymentCache = new DeploymentCache(client, informerStarter, projectionCache);
+        IngressAddressCache ingressAddressCache = new IngressAddressCache(clusterRegistry, informerStarter);
+        KubernetesService service = new KubernetesService(target, deploymentCache, ingressAddressCache,
+                projectionCache, clusterRegistry, executor, executor, null, metrics, OperationJournal.disabled());
+        OperationRegistry operationRegistry = new OperationRegistry(executor);
+        DeploymentWatchHub watchHub = new DeploymentWatchHub(target, service, projectionCache, clusterRegistry, 1);
+        try {
+            new KubernetesGauges(clusterRegistry, deploymentCache, ingressAddressCache, projectionCache,
+                    new NamespaceCache(clusterRegistry, informerStarter), operationRegistry, watchHub,
+                    new IngressReconciler(clusterRegistry, informerStarter, deploymentCache, target, meterRegistry),
+                    OperationJournal.disabled())
+                    .bindTo(meterRegistry);
+
+            Assert.assertEquals(0.0, meterRegistry.get("k8s.client.connections")
+                    .tags("state", "idle", "cluster", "default").gauge().value(), 0.0);
+            Assert.assertEquals(0.0, meterRegistry.get("k8s.client.calls")
+                    .tags("state", "queued", "cluster", "default").gauge().value(), 0.0);
+            Assert.assertEquals(0.0, meterRegistry.get("k8s.cache.deployments.ready").gauge().value(), 0.0);
+            Assert.assertEquals(0.0, meterRegistry.get("k8s.operations").gauge().value(), 0.0);
+            // the journal gauges are only bound when the journal is enabled
+            Assert.assertNull(meterRegistry.find("k8s.journal.segments").gauge());
+        } finally {
+            operationRegistry.stop();
+            watchHub.stop();
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.tomspizza.k8api.ratelimit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Assert;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class ApiRateLimiterTest {
+
+    private final ApiRateLimiter limiter = new ApiRateLimiter(new SimpleMeterRegistry());
+
+    @BeforeEach
+    public void setUp() {
+        ReflectionTestUtils.setField(limiter, "enabled", true);
+        ReflectionTestUtils.setField(limiter, "readQps", 1000.0);
+        ReflectionTestUtils.setField(limiter, "readBurst", 1000);
+        ReflectionTestUtils.setField(limiter, "readQueueSize", 10);
+        ReflectionTestUtils.setField(limiter, "writeQps", 1000.0);
+        ReflectionTestUtils.setField(limiter, "writeBurst", 1000);
+        ReflectionTestUtils.setField(limiter, "writeQueueSize", 10);
+        ReflectionTestUtils.setField(limiter, "namespaceConcurrency", 1);
+    }
+
+    @Test
+    public void testIdleBulkheadsAreDropped() throws Exception {
+        for (int i = 0; i < 100; i++) {
+            limiter.acquire("default", ApiRateLimiter.Lane.READ, "ns-" + i).close();
+        }
+        Assert.assertEquals(0, limiter.bulkheadCount());
+
+        ApiRateLimiter.Permit permit = limiter.acquire("default", ApiRateLimiter.Lane.WRITE, "ns");
+        try {
+            limiter.acquire("default", ApiRateLimiter.Lane.READ, "ns");
+            Assert.fail();
+        } catch (RateLimitedException e) {
+            Assert.assertEquals(1, limiter.bulkheadCount());
+        }
+        permit.close();
+        Assert.assertEquals(0, limiter.bulkheadCount());
+    }
+}
@@ -0,0 +1,181 @@
+package com.tomspizza.k8api.ratelimit;
+
+import com.tomspizza.k8api.cache.DeploymentCache;
+import com.tomspizza.k8api.cache.DeploymentProjectionCache;
+import com.tomspizza.k8api.cache.IngressAddressCache;
+import com.tomspizza.k8api.cache.InformerStarter;
+import com.tomspizza.k8api.cache.NamespaceCache;
+import com.tomspizza.k8api.cluster.ClusterRegistry;
+import com.tomspizza.k8api.dto.K8sDto;
+import com.tomspizza.k8api.exception.TooManyRequestsException;
+import com.tomspizza.k8api.journal.OperationJournal;
+import com.tomspizza.k8api.metrics.KubernetesMetrics;
+import com.tomspizza.k8api.repository.KubernetesRepository;
+import com.tomspizza.k8api.service.KubernetesService;
+import io.fabric8.kubernetes.api.model.ServiceListBuilder;
+import io.fabric8.kubernetes.api.model.networking.v1.IngressListBuilder;
+import io.fabric8.kubernetes.client.DefaultKubernetesClient;
+import io.fabric8.kubernetes.client.server.mock.KubernetesServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import org.junit.Assert;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+public class RateLimitInterceptorTest {
+
+    private static final String INGRESSES = "/apis/networking.k8s.io/v1/namespaces/default/ingresses";
+
+    private final KubernetesServer server = new KubernetesServer(false, false);
+
+    private ApiRateLimiter limiter;
+
+    private DefaultKubernetesClient client;
+
+    @BeforeEach
+    public void setUp() {
+        server.before();
+        limiter = new ApiRateLimiter(new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(limiter, "enabled", true);
+        ReflectionTestUtils.setField(limiter, "readQps", 0.001);
+        ReflectionTestUtils.setField(limiter, "readBurst", 1);
+        ReflectionTestUtils.setField(limiter, "readQueueSize", 10);
+        ReflectionTestUtils.setField(limiter, "writeQps", 0.001);
+        ReflectionTestUtils.setField(limiter, "writeBurst", 1);
+        ReflectionTestUtils.setField(limiter, "writeQueueSize", 10);
+        ReflectionTestUtils.setField(limiter, "namespaceConcurrency", 10);
+        DefaultKubernetesClient mockClient = (DefaultKubernetesClient) server.getClient();
+        OkHttpClient httpClient = mockClient.getHttpClient().newBuilder()
+                .addInterceptor(new RateLimitInterceptor(limiter, "default"))
+                .build();
+        client = new DefaultKubernetesClient(httpClient, mockClient.getConfiguration());
+
+        server.expect().get().withPath("/api/v1/namespaces/ns/services?labelSelector=app%3Da")
+                .andReturn(200, new ServiceListBuilder().build())
+                .always();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        server.after();
+    }
+
+    @Test
+    public void testRejectedSyncCall() throws IOException {
+        try (Response response = call("/api/v1/namespaces/ns/services?labelSelector=app%3Da").execute()) {
+            Assert.assertEquals(200, response.code());
+        }
+
+        try {
+            call("/api/v1/namespaces/ns/services?labelSelector=app%3Da").execute();
+            Assert.fail();
+        } catch (RateLimitedException e) {
+            Assert.assertTrue(e.getRetryAfterSeconds() > 0);
+        }
+    }
+
+    @Test
+    public void testRejectedAsyncCallReachesCallback() throws Exception {
+        call("/api/v1/namespaces/ns/services?labelSelector=app%3Da").execute().close();
+
+        CompletableFuture<IOException> failure = new CompletableFuture<>();
+        call("/apis/apps/v1/deployments?watch=true").enqueue(new Callback() {
+            @Override
+            public void onFailure(Call call, IOException e) {
+                failure.complete(e);
+            }
+
+            @Override
+            public void onResponse(Call call, Response response) {
+                response.close();
+                failure.complete(null);
+            }
+        });
+
+        Assert.assertTrue(failure.get(5, TimeUnit.SECONDS) instanceof RateLimitedException);
+    }
+
+    @Test
+    public void testRepositoryRejectionIsTooManyRequests() {
+        AspectJProxyFactory factory = new AspectJProxyFactory(repository(clusterRegistry()));
+        factory.setProxyTargetClass(true);
+        factory.addAspect(new RateLimitExceptionAspect());
+        KubernetesRepository repository = factory.getProxy();
+
+        repository.getServiceNames(null, "ns", "app=a");
+        try {
+            repository.getServiceNames(null, "ns", "app=a");
+            Assert.fail();
+        } catch (TooManyRequestsException e) {
+            Assert.assertTrue(e.getRetryAfterSeconds() > 0);
+        }
+    }
+
+    @Test
+    public void testIngressWriterRejectionIsTooManyRequests() {
+        // only the read of the ingress, made on the ingress writer thread, is over the limit
+        ReflectionTestUtils.setField(limiter, "writeBurst", 10);
+        server.expect().get().withPath(INGRESSES + "?labelSelector=app%3Dnginx-gateway")
+                .andReturn(200, new IngressListBuilder().build()).always();
+        server.expect().delete().withPath("/apis/apps/v1/namespaces/ns/deployments/a").andReturn(200, "{}").once();
+        server.expect().delete().withPath("/api/v1/namespaces/ns/services/a").andReturn(200, "{}").once();
+
+        ClusterRegistry clusterRegistry = clusterRegistry();
+        KubernetesRepository repository = repository(clusterRegistry);
+        ReflectionTestUtils.setField(repository, "ingressNamespace", "default");
+        ReflectionTestUtils.setField(repository, "ingressName", "nginx-gateway");
+        ReflectionTestUtils.setField(repository, "ingressShards", 1);
+        ReflectionTestUtils.setField(repository, "servicePort", 80);
+        ReflectionTestUtils.setField(repository, "ingressBatchWindow", 10L);
+        ReflectionTestUtils.setField(repository, "ingressMaxRetries", 3);
+        ReflectionTestUtils.setField(repository, "ingressRetryInterval", 100L);
+        KubernetesMetrics metrics = new KubernetesMetrics(new SimpleMeterRegistry());
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        KubernetesService service = new KubernetesService(repository, null, null, null, clusterRegistry, executor, executor,
+                null, metrics, OperationJournal.disabled());
+        K8sDto k8sDto = new K8sDto();
+        k8sDto.setNamespace("ns");
+        k8sDto.setServiceName("a");
+        repository.init();
+        try {
+            service.delete(k8sDto, message -> {
+            });
+            Assert.fail();
+        } catch (TooManyRequestsException e) {
+            Assert.assertTrue(e.getRetryAfterSeconds() > 0);
+        } finally {
+            repository.destroy();
+            executor.shutdown();
+        }
+    }
+
+    private ClusterRegistry clusterRegistry() {
+        return new ClusterRegistry("default", Collections.singletonList(new ClusterRegistry.Cluster("default", client, 1000)));
+    }
+
+    private KubernetesRepository repository(ClusterRegistry clusterRegistry) {
+        InformerStarter informerStarter = new InformerStarter();
+        return new KubernetesRepository(clusterRegistry,
+                new DeploymentCache(client, informerStarter, new DeploymentProjectionCache(100)),
+                new IngressAddressCache(clusterRegistry, informerStarter),
+                new NamespaceCache(clusterRegistry, informerStarter), new KubernetesMetrics(new SimpleMeterRegistry()));
+    }
+
+    private Call call(String path) {
+        return client.getHttpClient().newCall(new Request.Builder().url(client.getMasterUrl() + path.substring(1)).build());
+    }
+}
@@ -0,0 +1,31 @@
+package com.tomspizza.k8api.ratelimit;
+
+import org.junit.Assert;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+public class TokenBucketTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    public void testBurstThenRate() {
+        TokenBucket bucket = new TokenBucket(10, 2, 0L);
+
+        Assert.assertEquals(0L, bucket.reserve(0L, SECOND));
+        Assert.assertEquals(0L, bucket.reserve(0L, SECOND));
+        Assert.assertEquals(SECOND / 10, bucket.reserve(0L, SECOND));
+        Assert.assertEquals(2 * SECOND / 10, bucket.reserve(0L, SECOND));
+        Assert.assertEquals(0L, bucket.reserve(SECOND, SECOND));
+    }
+
+    @Test
+    public void testRejectWithoutTaking() {
+        TokenBucket bucket = new TokenBucket(1, 1, 0L);
+        bucket.reserve(0L, 0L);
+
+        Assert.assertEquals(-1L, bucket.reserve(0L, SECOND / 2));
+        Assert.assertEquals(SECOND, bucket.reserve(0L, SECOND));
+    }
+}
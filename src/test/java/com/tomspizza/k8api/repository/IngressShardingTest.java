@@ -0,0 +1,39 @@
+package com.tomspizza.k8api.repository;
+
+import org.junit.Assert;
+import org.junit.jupiter.api.Test;
+
+public class IngressShardingTest {
+
+    @Test
+    public void testSingleShard() {
+        Assert.assertEquals(0, IngressSharding.shardOf("raspberry-service", 1));
+        Assert.assertEquals("nginx-gateway", IngressSharding.shardName("nginx-gateway", 0));
+        Assert.assertEquals("nginx-gateway-3", IngressSharding.shardName("nginx-gateway", 3));
+    }
+
+    @Test
+    public void testDistribution() {
+        int[] counts = new int[4];
+        for (int i = 0; i < 4000; i++) {
+            counts[IngressSharding.shardOf("service-" + i, 4)]++;
+        }
+        for (int count : counts) {
+            Assert.assertTrue(count > 800 && count < 1200);
+        }
+    }
+
+    @Test
+    public void testMinimalMovement() {
+        int moved = 0;
+        for (int i = 0; i < 4000; i++) {
+            int before = IngressSharding.shardOf("service-" + i, 4);
+            int after = IngressSharding.shardOf("service-" + i, 5);
+            if (before != after) {
+                Assert.assertEquals(4, after);
+                moved++;
+            }
+        }
+        Assert.assertTrue(moved > 600 && moved < 1000);
+    }
+}
@@ -0,0 +1,95 @@
+package com.tomspizza.k8api.repository;
+
+import com.tomspizza.k8api.exception.IngressChangeSupersededException;
+import org.junit.Assert;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Function;
+
+public class IngressUpdateQueueTest {
+
+    @Test
+    public void testCoalesce() {
+        List<Map<String, Boolean>> writes = new CopyOnWriteArrayList<>();
+        IngressUpdateQueue queue = new IngressUpdateQueue(100, recordTo(writes));
+
+        CompletableFuture<Void> a = queue.register("a");
+        CompletableFuture<Void> b = queue.register("b");
+        CompletableFuture<Void> b2 = queue.register("b");
+        CompletableFuture<Void> c = queue.unregister("a");
+        CompletableFuture.allOf(b, b2, c).join();
+
+        Assert.assertEquals(1, writes.size());
+        Assert.assertEquals(Boolean.FALSE, writes.get(0).get("a"));
+        Assert.assertEquals(Boolean.TRUE, writes.get(0).get("b"));
+        queue.shutdown();
+
+        try {
+            a.join();
+            Assert.fail();
+        } catch (CompletionException e) {
+            Assert.assertTrue(e.getCause() instanceof IngressChangeSupersededException);
+        }
+    }
+
+    @Test
+    public void testSubmitAll() {
+        List<Map<String, Boolean>> writes = new CopyOnWriteArrayList<>();
+        IngressUpdateQueue queue = new IngressUpdateQueue(0, recordTo(writes));
+
+        Map<String, CompletableFuture<Void>> futures = queue.submitAll(Arrays.asList("a", "b", "c"), false);
+        CompletableFuture.allOf(futures.values().toArray(new CompletableFuture[0])).join();
+
+        Assert.assertEquals(1, writes.size());
+        Assert.assertEquals(3, writes.get(0).size());
+        Assert.assertFalse(writes.get(0).containsValue(true));
+        queue.shutdown();
+    }
+
+    @Test
+    public void testFailure() {
+        IngressUpdateQueue queue = new IngressUpdateQueue(10, changes -> {
+            throw new IllegalStateException("conflict");
+        });
+
+        CompletableFuture<Void> a = queue.register("a");
+        try {
+            a.join();
+            Assert.fail();
+        } catch (CompletionException e) {
+            Assert.assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+        queue.shutdown();
+    }
+
+    @Test
+    public void testPartialFailure() {
+        IllegalStateException conflict = new IllegalStateException("conflict");
+        IngressUpdateQueue queue = new IngressUpdateQueue(10, changes -> Collections.singletonMap("b", conflict));
+
+        CompletableFuture<Void> a = queue.register("a");
+        CompletableFuture<Void> b = queue.register("b");
+        a.join();
+        try {
+            b.join();
+            Assert.fail();
+        } catch (CompletionException e) {
+            Assert.assertSame(conflict, e.getCause());
+        }
+        queue.shutdown();
+    }
+
+    private static Function<Map<String, Boolean>, Map<String, RuntimeException>> recordTo(List<Map<String, Boolean>> writes) {
+        return changes -> {
+            writes.add(changes);
+            return Collections.emptyMap();
+        };
+    }
+}
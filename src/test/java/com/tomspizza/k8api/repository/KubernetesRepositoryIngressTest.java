@@ -0,0 +1,145 @@
+package com.tomspizza.k8api.repository;
+
+import com.tomspizza.k8api.cache.DeploymentCache;
+import com.tomspizza.k8api.cache.DeploymentProjectionCache;
+import com.tomspizza.k8api.cache.IngressAddressCache;
+import com.tomspizza.k8api.cache.InformerStarter;
+import com.tomspizza.k8api.cache.NamespaceCache;
+import com.tomspizza.k8api.cluster.ClusterRegistry;
+import com.tomspizza.k8api.metrics.KubernetesMetrics;
+import io.fabric8.kubernetes.api.model.TypedLocalObjectReferenceBuilder;
+import io.fabric8.kubernetes.api.model.networking.v1.HTTPIngressPath;
+import io.fabric8.kubernetes.api.model.networking.v1.HTTPIngressPathBuilder;
+import io.fabric8.kubernetes.api.model.networking.v1.Ingress;
+import io.fabric8.kubernetes.api.model.networking.v1.IngressBuilder;
+import io.fabric8.kubernetes.api.model.networking.v1.IngressListBuilder;
+import io.fabric8.kubernetes.client.DefaultKubernetesClient;
+import io.fabric8.kubernetes.client.server.mock.KubernetesServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.Assert;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+public class KubernetesRepositoryIngressTest {
+
+    private static final String INGRESSES = "/apis/networking.k8s.io/v1/namespaces/default/ingresses";
+
+    private final KubernetesServer server = new KubernetesServer(false, false);
+
+    private KubernetesRepository repository;
+
+    @BeforeEach
+    public void setUp() {
+        server.before();
+        DefaultKubernetesClient client = (DefaultKubernetesClient) server.getClient();
+        ClusterRegistry clusterRegistry = new ClusterRegistry("default", Collections.singletonList(
+                new ClusterRegistry.Cluster("default", client, 1000)));
+        InformerStarter informerStarter = new InformerStarter();
+        repository = new KubernetesRepository(clusterRegistry,
+                new DeploymentCache(client, informerStarter, new DeploymentProjectionCache(100)),
+                new IngressAddressCache(clusterRegistry, informerStarter),
+                new NamespaceCache(clusterRegistry, informerStarter), new KubernetesMetrics(new SimpleMeterRegistry()));
+        ReflectionTestUtils.setField(repository, "ingressNamespace", "default");
+        ReflectionTestUtils.setField(repository, "ingressName", "nginx-gateway");
+        ReflectionTestUtils.setField(repository, "ingressShards", 1);
+        ReflectionTestUtils.setField(repository, "servicePort", 80);
+        ReflectionTestUtils.setField(repository, "patchEnabled", true);
+        ReflectionTestUtils.setField(repository, "ingressBatchWindow", 10L);
+        ReflectionTestUtils.setField(repository, "ingressMaxRetries", 3);
+        ReflectionTestUtils.setField(repository, "ingressRetryInterval", 100L);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        repository.destroy();
+        server.after();
+    }
+
+    @Test
+    public void testSkipsPathsWithoutServiceBackend() throws Exception {
+        Ingress ingress = ingress("1", resourcePath(), servicePath("a"), servicePath("b"));
+        server.expect().get().withPath(INGRESSES + "?labelSelector=app%3Dnginx-gateway")
+                .andReturn(200, new IngressListBuilder().addToItems(ingress).build()).always();
+        server.expect().get().withPath(INGRESSES + "/nginx-gateway").andReturn(200, ingress).always();
+        server.expect().patch().withPath(INGRESSES + "/nginx-gateway")
+                .andReturn(200, ingress("2", resourcePath(), servicePath("b"))).once();
+
+        repository.init();
+        repository.unregister2Ingress(null, "a").get(5, TimeUnit.SECONDS);
+
+        List<String> patches = new ArrayList<>();
+        for (int i = server.getMockServer().getRequestCount(); i > 0; i--) {
+            RecordedRequest request = server.getMockServer().takeRequest();
+            if ("PATCH".equals(request.getMethod())) {
+                patches.add(request.getBody().readUtf8());
+            }
+        }
+        Assert.assertEquals(1, patches.size());
+        Assert.assertTrue(patches.get(0).contains("{\"op\":\"remove\",\"path\":\"/spec/rules/0/http/paths/1\"}"));
+        Assert.assertFalse(patches.get(0).contains("paths/0"));
+    }
+
+    @Test
+    public void testDeleteOfEmptiedIngressIsConditional() throws Exception {
+        Ingress ingress = ingress("1", servicePath("a"));
+        server.expect().get().withPath(INGRESSES + "?labelSelector=app%3Dnginx-gateway")
+                .andReturn(200, new IngressListBuilder().addToItems(ingress).build()).always();
+        server.expect().get().withPath(INGRESSES + "/nginx-gateway").andReturn(200, ingress).once();
+        // another replica registers c before the delete arrives
+        server.expect().delete().withPath(INGRESSES + "/nginx-gateway").andReturn(409, "").once();
+        server.expect().get().withPath(INGRESSES + "/nginx-gateway")
+                .andReturn(200, ingress("2", servicePath("a"), servicePath("c"))).always();
+        server.expect().patch().withPath(INGRESSES + "/nginx-gateway")
+                .andReturn(200, ingress("3", servicePath("c"))).once();
+
+        repository.init();
+        repository.unregister2Ingress(null, "a").get(5, TimeUnit.SECONDS);
+
+        List<String> writes = new ArrayList<>();
+        for (int i = server.getMockServer().getRequestCount(); i > 0; i--) {
+            RecordedRequest request = server.getMockServer().takeRequest();
+            if (!"GET".equals(request.getMethod())) {
+                writes.add(request.getMethod() + " " + request.getBody().readUtf8());
+            }
+        }
+        Assert.assertEquals(2, writes.size());
+        Assert.assertTrue(writes.get(0).startsWith("DELETE "));
+        Assert.assertTrue(writes.get(0).contains("\"preconditions\":{\"resourceVersion\":\"1\"}"));
+        Assert.assertTrue(writes.get(1).startsWith("PATCH "));
+        Assert.assertTrue(writes.get(1).contains("\"value\":\"2\""));
+        Assert.assertTrue(writes.get(1).contains("{\"op\":\"remove\",\"path\":\"/spec/rules/0/http/paths/0\"}"));
+    }
+
+    static Ingress ingress(String resourceVersion, HTTPIngressPath... paths) {
+        return new IngressBuilder()
+                .withNewMetadata().withName("nginx-gateway").withNamespace("default")
+                .withResourceVersion(resourceVersion).endMetadata()
+                .withNewSpec().addNewRule().withNewHttp().withPaths(paths).endHttp().endRule().endSpec()
+                .build();
+    }
+
+    static HTTPIngressPath servicePath(String serviceName) {
+        return new HTTPIngressPathBuilder()
+                .withPath("/" + serviceName + "(/|$)(.*)").withPathType("Prefix")
+                .withNewBackend().withNewService().withName(serviceName).withNewPort().withNumber(80).endPort()
+                .endService().endBackend()
+                .build();
+    }
+
+    private static HTTPIngressPath resourcePath() {
+        return new HTTPIngressPathBuilder()
+                .withPath("/static").withPathType("Prefix")
+                .withNewBackend().withResource(new TypedLocalObjectReferenceBuilder()
+                        .withApiGroup("k8s.example.com").withKind("StorageBucket").withName("static").build())
+                .endBackend()
+                .build();
+    }
+}
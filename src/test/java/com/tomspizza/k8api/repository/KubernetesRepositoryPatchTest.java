@@ -0,0 +1,119 @@
+package com.tomspizza.k8api.repository;
+
+import com.tomspizza.k8api.cache.DeploymentCache;
+import com.tomspizza.k8api.cache.DeploymentProjectionCache;
+import com.tomspizza.k8api.cache.IngressAddressCache;
+import com.tomspizza.k8api.cache.InformerStarter;
+import com.tomspizza.k8api.cache.NamespaceCache;
+import com.tomspizza.k8api.cluster.ClusterRegistry;
+import com.tomspizza.k8api.metrics.KubernetesMetrics;
+import io.fabric8.kubernetes.api.model.apps.Deployment;
+import io.fabric8.kubernetes.api.model.apps.DeploymentBuilder;
+import io.fabric8.kubernetes.client.DefaultKubernetesClient;
+import io.fabric8.kubernetes.client.server.mock.KubernetesServer;
+import io.fabric8.kubernetes.client.utils.Serialization;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.Assert;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+public class KubernetesRepositoryPatchTest {
+
+    private static final String DEPLOYMENTS = "/apis/apps/v1/namespaces/ns/deployments";
+
+    private final KubernetesServer server = new KubernetesServer(false, false);
+
+    private KubernetesRepository repository;
+
+    @BeforeEach
+    public void setUp() {
+        server.before();
+        DefaultKubernetesClient client = (DefaultKubernetesClient) server.getClient();
+        ClusterRegistry clusterRegistry = new ClusterRegistry("default", Collections.singletonList(
+                new ClusterRegistry.Cluster("default", client, 1000)));
+        InformerStarter informerStarter = new InformerStarter();
+        DeploymentCache deploymentCache = new DeploymentCache(client, informerStarter,
+                new DeploymentProjectionCache(100));
+        repository = new KubernetesRepository(clusterRegistry, deploymentCache,
+                new IngressAddressCache(clusterRegistry, informerStarter),
+                new NamespaceCache(clusterRegistry, informerStarter), new KubernetesMetrics(new SimpleMeterRegistry()));
+        ReflectionTestUtils.setField(repository, "patchEnabled", true);
+        ReflectionTestUtils.setField(repository, "serverSideApplyEnabled", true);
+        ReflectionTestUtils.setField(repository, "containerPort", 8081);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        server.after();
+    }
+
+    @Test
+    public void testScaleSendsMergePatch() throws Exception {
+        server.expect().patch().withPath(DEPLOYMENTS + "/a").andReturn(200, deployment("a", 3)).once();
+
+        Deployment scaled = repository.scalePod(null, "ns", "a", 3);
+
+        Assert.assertEquals(Integer.valueOf(3), scaled.getSpec().getReplicas());
+        RecordedRequest request = server.getMockServer().takeRequest();
+        Assert.assertEquals("PATCH", request.getMethod());
+        Assert.assertTrue(request.getHeader("Content-Type").startsWith("application/merge-patch+json"));
+        Assert.assertEquals("{\"spec\":{\"replicas\":3}}", request.getBody().readUtf8());
+        Assert.assertEquals(1, server.getMockServer().getRequestCount());
+    }
+
+    @Test
+    public void testDeployAppliesWithoutReplicas() throws Exception {
+        server.expect().patch().withPath(DEPLOYMENTS + "/a?fieldManager=k8api&force=true")
+                .andReturn(200, deployment("a", 5)).once();
+
+        Deployment applied = repository.deployDeployment(null, "ns", "a", "nginx");
+
+        // the replica count set by an earlier scale is kept
+        Assert.assertEquals(Integer.valueOf(5), applied.getSpec().getReplicas());
+        RecordedRequest request = server.getMockServer().takeRequest();
+        Assert.assertTrue(request.getHeader("Content-Type").startsWith("application/apply-patch+yaml"));
+        Deployment sent = Serialization.unmarshal(request.getBody().readUtf8(), Deployment.class);
+        Assert.assertNull(sent.getSpec().getReplicas());
+        Assert.assertEquals("nginx", sent.getSpec().getTemplate().getSpec().getContainers().get(0).getImage());
+    }
+
+    @Test
+    public void testDeployFallsBackToCreateOn415() throws Exception {
+        server.expect().patch().withPath(DEPLOYMENTS + "/a?fieldManager=k8api&force=true")
+                .andReturn(415, "").once();
+        server.expect().post().withPath(DEPLOYMENTS).andReturn(201, deployment("a", 1)).once();
+        server.expect().post().withPath(DEPLOYMENTS).andReturn(201, deployment("b", 1)).once();
+
+        repository.deployDeployment(null, "ns", "a", "nginx");
+        repository.deployDeployment(null, "ns", "b", "nginx");
+
+        List<String> requests = new ArrayList<>();
+        for (int i = server.getMockServer().getRequestCount(); i > 0; i--) {
+            RecordedRequest request = server.getMockServer().takeRequest();
+            requests.add(request.getMethod() + " " + request.getPath());
+            if ("POST".equals(request.getMethod())) {
+                Deployment created = Serialization.unmarshal(request.getBody().readUtf8(), Deployment.class);
+                Assert.assertEquals(Integer.valueOf(1), created.getSpec().getReplicas());
+            }
+        }
+        // the unsupported patch type is not tried again
+        Assert.assertEquals(3, requests.size());
+        Assert.assertEquals("PATCH " + DEPLOYMENTS + "/a?fieldManager=k8api&force=true", requests.get(0));
+        Assert.assertEquals("POST " + DEPLOYMENTS, requests.get(1));
+        Assert.assertEquals("POST " + DEPLOYMENTS, requests.get(2));
+    }
+
+    private static Deployment deployment(String name, int replicas) {
+        return new DeploymentBuilder()
+                .withNewMetadata().withName(name).withNamespace("ns").endMetadata()
+                .withNewSpec().withReplicas(replicas).endSpec()
+                .build();
+    }
+}
@@ -0,0 +1,58 @@
+package com.tomspizza.k8api.service;
+
+import io.fabric8.kubernetes.api.model.apps.Deployment;
+import io.fabric8.kubernetes.api.model.apps.DeploymentBuilder;
+import org.junit.Assert;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+public class DeployPhasesTest {
+
+    @Test
+    public void testDurations() {
+        List<String> steps = new ArrayList<>();
+        DeployPhases phases = new DeployPhases(0L, steps::add);
+        phases.mark(DeployPhases.NAMESPACE, 10L);
+        phases.mark(DeployPhases.DEPLOYMENT, 30L);
+        phases.mark(DeployPhases.IMAGE_PULLED, 45L);
+        phases.mark(DeployPhases.SERVICE, 50L);
+        phases.mark(DeployPhases.INGRESS, 80L);
+        phases.mark(DeployPhases.READY, 100L);
+        phases.mark(DeployPhases.READY, 120L);
+
+        Map<String, Long> durations = phases.getDurations();
+        Assert.assertEquals(Arrays.asList("namespace", "deployment", "service", "ingress", "imagePulled", "ready"),
+                new ArrayList<>(durations.keySet()));
+        Assert.assertEquals(Long.valueOf(20L), durations.get(DeployPhases.DEPLOYMENT));
+        Assert.assertEquals(Long.valueOf(15L), durations.get(DeployPhases.IMAGE_PULLED));
+        Assert.assertEquals(Long.valueOf(55L), durations.get(DeployPhases.READY));
+        Assert.assertEquals(100L, phases.getTotal());
+        Assert.assertEquals(6, steps.size());
+    }
+
+    @Test
+    public void testRolledOut() {
+        Assert.assertFalse(RolloutTracker.isRolledOut(deployment(2L, 1L, 1, 1, 1, 1)));
+        Assert.assertFalse(RolloutTracker.isRolledOut(deployment(2L, 2L, 2, 1, 2, 1)));
+        Assert.assertFalse(RolloutTracker.isRolledOut(deployment(2L, 2L, 1, 1, 2, 1)));
+        Assert.assertTrue(RolloutTracker.isRolledOut(deployment(2L, 2L, 2, 2, 2, 2)));
+    }
+
+    private static Deployment deployment(long generation, long observedGeneration, int desired, int updated,
+                                         int replicas, int available) {
+        return new DeploymentBuilder()
+                .withNewMetadata().withName("app").withGeneration(generation).endMetadata()
+                .withNewSpec().withReplicas(desired).endSpec()
+                .withNewStatus()
+                .withObservedGeneration(observedGeneration)
+                .withUpdatedReplicas(updated)
+                .withReplicas(replicas)
+                .withAvailableReplicas(available)
+                .endStatus()
+                .build();
+    }
+}
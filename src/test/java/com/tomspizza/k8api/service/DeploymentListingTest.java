@@ -0,0 +1,180 @@
+package com.tomspizza.k8api.service;
+
+import com.tomspizza.k8api.cache.DeploymentCache;
+import com.tomspizza.k8api.cache.DeploymentProjectionCache;
+import com.tomspizza.k8api.cache.IngressAddressCache;
+import com.tomspizza.k8api.cache.InformerStarter;
+import com.tomspizza.k8api.cache.NamespaceCache;
+import com.tomspizza.k8api.cluster.ClusterRegistry;
+import com.tomspizza.k8api.dto.DeploymentDto;
+import com.tomspizza.k8api.dto.DeploymentPageDto;
+import com.tomspizza.k8api.journal.OperationJournal;
+import com.tomspizza.k8api.metrics.KubernetesMetrics;
+import com.tomspizza.k8api.repository.KubernetesRepository;
+import io.fabric8.kubernetes.api.model.ListMetaBuilder;
+import io.fabric8.kubernetes.api.model.Pod;
+import io.fabric8.kubernetes.api.model.PodBuilder;
+import io.fabric8.kubernetes.api.model.PodListBuilder;
+import io.fabric8.kubernetes.api.model.ServiceBuilder;
+import io.fabric8.kubernetes.api.model.ServiceListBuilder;
+import io.fabric8.kubernetes.api.model.apps.Deployment;
+import io.fabric8.kubernetes.api.model.apps.DeploymentBuilder;
+import io.fabric8.kubernetes.api.model.apps.DeploymentListBuilder;
+import io.fabric8.kubernetes.client.DefaultKubernetesClient;
+import io.fabric8.kubernetes.client.server.mock.KubernetesServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Assert;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.net.URLDecoder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+
+public class DeploymentListingTest {
+
+    private final KubernetesServer server = new KubernetesServer(false, false);
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(2);
+
+    private KubernetesService service;
+
+    @BeforeEach
+    public void setUp() {
+        server.before();
+        ClusterRegistry clusterRegistry = new ClusterRegistry("default", Collections.singletonList(
+                new ClusterRegistry.Cluster("default", (DefaultKubernetesClient) server.getClient(), 1000)));
+        InformerStarter informerStarter = new InformerStarter();
+        DeploymentProjectionCache projectionCache = new DeploymentProjectionCache(100);
+        DeploymentCache deploymentCache = new DeploymentCache((DefaultKubernetesClient) server.getClient(),
+                informerStarter, projectionCache);
+        IngressAddressCache ingressAddressCache = new IngressAddressCache(clusterRegistry, informerStarter);
+        ReflectionTestUtils.setField(ingressAddressCache, "controllerName", "ingress-nginx-controller");
+        KubernetesMetrics metrics = new KubernetesMetrics(new SimpleMeterRegistry());
+        KubernetesRepository repository = new KubernetesRepository(clusterRegistry, deploymentCache, ingressAddressCache,
+                new NamespaceCache(clusterRegistry, informerStarter), metrics);
+        service = new KubernetesService(repository, deploymentCache, ingressAddressCache, projectionCache,
+                clusterRegistry, executor, executor, null, metrics, OperationJournal.disabled());
+        ReflectionTestUtils.setField(service, "urlSchema", "http");
+        ReflectionTestUtils.setField(service, "listPageSize", 2);
+
+        server.expect().get().withPath("/api/v1/services?fieldSelector=metadata.name%3Dingress-nginx-controller")
+                .andReturn(200, new ServiceListBuilder().addToItems(new ServiceBuilder()
+                        .withNewStatus().withNewLoadBalancer().addNewIngress().withIp("10.0.0.1").endIngress()
+                        .endLoadBalancer().endStatus()
+                        .build()).build())
+                .always();
+        server.expect().get().withPath("/apis/apps/v1/deployments")
+                .andReturn(200, new DeploymentListBuilder()
+                        .withMetadata(new ListMetaBuilder().build())
+                        .withItems(deployment("a"))
+                        .build())
+                .always();
+        server.expect().get().withPath("/apis/apps/v1/deployments?limit=2")
+                .andReturn(200, new DeploymentListBuilder()
+                        .withMetadata(new ListMetaBuilder().withContinue("page-2").build())
+                        .withItems(deployment("a"), deployment("b"))
+                        .build())
+                .always();
+        server.expect().get().withPath("/apis/apps/v1/deployments?limit=2&continue=page-2")
+                .andReturn(200, new DeploymentListBuilder()
+                        .withMetadata(new ListMetaBuilder().build())
+                        .withItems(deployment("c"))
+                        .build())
+                .always();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        executor.shutdownNow();
+        server.after();
+    }
+
+    @Test
+    public void testPageFollowsContinueToken() {
+        DeploymentPageDto first = service.getDeploymentPage(null, null, null, 2, null, false);
+        Assert.assertEquals("page-2", first.getContinueToken());
+        Assert.assertEquals("a,b", names(first.getItems()));
+        Assert.assertEquals("http://10.0.0.1/a", first.getItems().get(0).getUrl());
+
+        DeploymentPageDto last = service.getDeploymentPage(null, null, null, 2, "page-2", false);
+        Assert.assertNull(last.getContinueToken());
+        Assert.assertEquals("c", names(last.getItems()));
+    }
+
+    @Test
+    public void testPodsAreListedForThePageOnly() throws Exception {
+        server.expect().get().withPath("/api/v1/pods?labelSelector=app%20in%20%28a%2Cb%29")
+                .andReturn(200, new PodListBuilder().withItems(pod("a", "a-1"), pod("b", "b-1"), pod("b", "b-2")).build())
+                .once();
+
+        DeploymentPageDto first = service.getDeploymentPage(null, null, null, 2, null, true);
+
+        Assert.assertEquals(1, first.getItems().get(0).getPods().size());
+        Assert.assertEquals(2, first.getItems().get(1).getPods().size());
+        List<String> podLists = new ArrayList<>();
+        for (int i = server.getMockServer().getRequestCount(); i > 0; i--) {
+            String path = server.getMockServer().takeRequest().getPath();
+            if (path.startsWith("/api/v1/pods")) {
+                podLists.add(URLDecoder.decode(path, "UTF-8"));
+            }
+        }
+        Assert.assertEquals(Collections.singletonList("/api/v1/pods?labelSelector=app in (a,b)"), podLists);
+    }
+
+    @Test
+    public void testStreamReadsEveryPage() throws Exception {
+        List<DeploymentDto> streamed = new ArrayList<>();
+        service.streamDeployments(null, null, null, streamed::add);
+
+        Assert.assertEquals("a,b,c", names(streamed));
+        List<String> lists = new ArrayList<>();
+        for (int i = server.getMockServer().getRequestCount(); i > 0; i--) {
+            String path = server.getMockServer().takeRequest().getPath();
+            if (path.startsWith("/apis/apps/v1/deployments")) {
+                lists.add(path);
+            }
+        }
+        Assert.assertEquals(2, lists.size());
+    }
+
+    @Test
+    public void testETagCoversRepresentation() {
+        List<String> etags = new ArrayList<>();
+        service.getDeployments(null, null, null, false, Arrays.asList("application/json", null), etags::add);
+        service.getDeployments(null, null, null, false, Arrays.asList("application/json", null), etags::add);
+        service.getDeployments(null, null, null, false, Arrays.asList("application/cbor", null), etags::add);
+        service.getDeployments(null, null, null, false, Arrays.asList("application/json", "serviceName"), etags::add);
+
+        Assert.assertEquals(etags.get(0), etags.get(1));
+        Assert.assertEquals(3, new HashSet<>(etags).size());
+    }
+
+    private static String names(List<DeploymentDto> deployments) {
+        return deployments.stream().map(DeploymentDto::getServiceName).collect(Collectors.joining(","));
+    }
+
+    private static Pod pod(String app, String name) {
+        return new PodBuilder()
+                .withNewMetadata().withName(name).withNamespace("default").addToLabels("app", app).endMetadata()
+                .build();
+    }
+
+    private static Deployment deployment(String name) {
+        return new DeploymentBuilder()
+                .withNewMetadata().withName(name).withNamespace("default").withUid(name)
+                .withResourceVersion("1").withCreationTimestamp("2021-01-01T00:00:00Z").endMetadata()
+                .withNewSpec().withReplicas(1).withNewTemplate().withNewSpec()
+                .addNewContainer().withName(name).withImage("nginx").endContainer()
+                .endSpec().endTemplate().endSpec()
+                .build();
+    }
+}
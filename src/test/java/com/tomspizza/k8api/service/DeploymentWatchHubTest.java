@@ -0,0 +1,219 @@
+package com.tomspizza.k8api.service;
+
+import com.tomspizza.k8api.cache.DeploymentCache;
+import com.tomspizza.k8api.cache.DeploymentProjectionCache;
+import com.tomspizza.k8api.cache.IngressAddressCache;
+import com.tomspizza.k8api.cache.InformerStarter;
+import com.tomspizza.k8api.cache.NamespaceCache;
+import com.tomspizza.k8api.cluster.ClusterRegistry;
+import com.tomspizza.k8api.dto.DeploymentEventDto;
+import com.tomspizza.k8api.journal.OperationJournal;
+import com.tomspizza.k8api.metrics.KubernetesMetrics;
+import com.tomspizza.k8api.repository.KubernetesRepository;
+import io.fabric8.kubernetes.api.model.ListMetaBuilder;
+import io.fabric8.kubernetes.api.model.ServiceBuilder;
+import io.fabric8.kubernetes.api.model.ServiceListBuilder;
+import io.fabric8.kubernetes.api.model.WatchEvent;
+import io.fabric8.kubernetes.api.model.apps.Deployment;
+import io.fabric8.kubernetes.api.model.apps.DeploymentBuilder;
+import io.fabric8.kubernetes.api.model.apps.DeploymentListBuilder;
+import io.fabric8.kubernetes.client.DefaultKubernetesClient;
+import io.fabric8.mockwebserver.dsl.EventDoneable;
+import io.fabric8.mockwebserver.dsl.TimesOnceableOrHttpHeaderable;
+import io.fabric8.kubernetes.client.server.mock.KubernetesServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Assert;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+public class DeploymentWatchHubTest {
+
+    private final KubernetesServer server = new KubernetesServer(false, false);
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(2);
+
+    private DeploymentWatchHub hub;
+
+    @BeforeEach
+    public void setUp() {
+        server.before();
+        DefaultKubernetesClient client = (DefaultKubernetesClient) server.getClient();
+        ClusterRegistry clusterRegistry = new ClusterRegistry("default", Collections.singletonList(
+                new ClusterRegistry.Cluster("default", client, 1000)));
+        InformerStarter informerStarter = new InformerStarter();
+        DeploymentProjectionCache projectionCache = new DeploymentProjectionCache(100);
+        DeploymentCache deploymentCache = new DeploymentCache(client, informerStarter,
+                projectionCache);
+        IngressAddressCache ingressAddressCache = new IngressAddressCache(clusterRegistry, informerStarter);
+        ReflectionTestUtils.setField(ingressAddressCache, "controllerName", "ingress-nginx-controller");
+        KubernetesMetrics metrics = new KubernetesMetrics(new SimpleMeterRegistry());
+        KubernetesRepository repository = new KubernetesRepository(clusterRegistry, deploymentCache, ingressAddressCache,
+                new NamespaceCache(clusterRegistry, informerStarter), metrics);
+        KubernetesService service = new KubernetesService(repository, deploymentCache, ingressAddressCache,
+                projectionCache, clusterRegistry, executor, executor, null, metrics, OperationJournal.disabled());
+        ReflectionTestUtils.setField(service, "urlSchema", "http");
+        hub = new DeploymentWatchHub(repository, service, projectionCache, clusterRegistry, 2);
+        ReflectionTestUtils.setField(hub, "bufferSize", 2);
+        ReflectionTestUtils.setField(hub, "historySize", 100);
+        ReflectionTestUtils.setField(hub, "retryInterval", 100L);
+
+        server.expect().get().withPath("/api/v1/services?fieldSelector=metadata.name%3Dingress-nginx-controller")
+                .andReturn(200, new ServiceListBuilder().addToItems(new ServiceBuilder()
+                        .withNewStatus().withNewLoadBalancer().addNewIngress().withIp("10.0.0.1").endIngress()
+                        .endLoadBalancer().endStatus()
+                        .build()).build())
+                .always();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        hub.stop();
+        executor.shutdownNow();
+        server.after();
+    }
+
+    @Test
+    public void testEventsInOrder() throws Exception {
+        expectList(deployment("a", 1, 1, "10"));
+        expectWatch(
+                event("MODIFIED", deployment("a", 3, 1, "11")),
+                event("MODIFIED", deployment("a", 3, 3, "12")),
+                event("ADDED", deployment("b", 1, 0, "13")),
+                event("DELETED", deployment("b", 1, 0, "14")));
+        RecordingEmitter emitter = new RecordingEmitter();
+        hub.subscribe(emitter, null, null);
+
+        DeploymentEventDto scaled = emitter.next();
+        Assert.assertEquals(DeploymentEventDto.Type.SCALED, scaled.getType());
+        Assert.assertEquals(Integer.valueOf(1), scaled.getPreviousReplicas());
+        Assert.assertEquals("11", scaled.getResourceVersion());
+        // only the status count changed, the rollout progressing
+        Assert.assertEquals(DeploymentEventDto.Type.MODIFIED, emitter.next().getType());
+        DeploymentEventDto added = emitter.next();
+        Assert.assertEquals(DeploymentEventDto.Type.ADDED, added.getType());
+        Assert.assertEquals("b", added.getDeployment().getServiceName());
+        Assert.assertEquals(DeploymentEventDto.Type.DELETED, emitter.next().getType());
+    }
+
+    @Test
+    public void testOverflowSendsResync() throws Exception {
+        expectList();
+        WatchEvent[] events = new WatchEvent[6];
+        for (int i = 0; i < events.length; i++) {
+            events[i] = event("ADDED", deployment("s" + i, 1, 0, String.valueOf(11 + i)));
+        }
+        expectWatch(events);
+        RecordingEmitter emitter = new RecordingEmitter();
+        emitter.gate = new CountDownLatch(1);
+        hub.subscribe(emitter, null, null);
+        Thread.sleep(1000);
+        emitter.gate.countDown();
+
+        Assert.assertEquals("s0", emitter.next().getDeployment().getServiceName());
+        DeploymentEventDto resync = emitter.next();
+        Assert.assertEquals(DeploymentEventDto.Type.RESYNC, resync.getType());
+        // the events dropped on overflow are not sent, those queued after it are
+        Assert.assertEquals("s4", emitter.next().getDeployment().getServiceName());
+        Assert.assertEquals("s5", emitter.next().getDeployment().getServiceName());
+    }
+
+    @Test
+    public void testResumeFromResourceVersion() throws Exception {
+        expectList();
+        expectWatch(
+                event("ADDED", deployment("a", 1, 0, "11")),
+                event("ADDED", deployment("b", 1, 0, "12")),
+                event("ADDED", deployment("c", 1, 0, "13")));
+        RecordingEmitter first = new RecordingEmitter();
+        hub.subscribe(first, null, null);
+        first.next();
+        first.next();
+        first.next();
+
+        RecordingEmitter resumed = new RecordingEmitter();
+        hub.subscribe(resumed, null, "11");
+        Assert.assertEquals("b", resumed.next().getDeployment().getServiceName());
+        Assert.assertEquals("c", resumed.next().getDeployment().getServiceName());
+
+        RecordingEmitter current = new RecordingEmitter();
+        hub.subscribe(current, null, "13");
+        RecordingEmitter expired = new RecordingEmitter();
+        hub.subscribe(expired, null, "5");
+        Assert.assertEquals(DeploymentEventDto.Type.RESYNC, expired.next().getType());
+        Assert.assertNull(current.events.poll(200, TimeUnit.MILLISECONDS));
+    }
+
+    private void expectList(Deployment... deployments) {
+        server.expect().get().withPath("/apis/apps/v1/deployments")
+                .andReturn(200, new DeploymentListBuilder()
+                        .withMetadata(new ListMetaBuilder().withResourceVersion("10").build())
+                        .withItems(deployments)
+                        .build())
+                .always();
+    }
+
+    private void expectWatch(WatchEvent... events) {
+        EventDoneable<TimesOnceableOrHttpHeaderable<Void>> session = server.expect().get()
+                .withPath("/apis/apps/v1/deployments?resourceVersion=10&watch=true")
+                .andUpgradeToWebSocket().open();
+        for (WatchEvent event : events) {
+            session = session.waitFor(50).andEmit(event);
+        }
+        session.done().once();
+    }
+
+    private static WatchEvent event(String type, Deployment deployment) {
+        return new WatchEvent(deployment, type);
+    }
+
+    private static Deployment deployment(String name, int specReplicas, int statusReplicas, String resourceVersion) {
+        return new DeploymentBuilder()
+                .withNewMetadata().withName(name).withNamespace("default").withUid(name)
+                .withResourceVersion(resourceVersion).endMetadata()
+                .withNewSpec().withReplicas(specReplicas).withNewTemplate().withNewSpec()
+                .addNewContainer().withName(name).withImage("nginx").endContainer()
+                .endSpec().endTemplate().endSpec()
+                .withNewStatus().withReplicas(statusReplicas).endStatus()
+                .build();
+    }
+
+    private static class RecordingEmitter extends SseEmitter {
+        private final BlockingQueue<DeploymentEventDto> events = new LinkedBlockingQueue<>();
+        private volatile CountDownLatch gate;
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            if (gate != null) {
+                try {
+                    gate.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            for (ResponseBodyEmitter.DataWithMediaType data : builder.build()) {
+                if (data.getData() instanceof DeploymentEventDto) {
+                    events.add((DeploymentEventDto) data.getData());
+                }
+            }
+        }
+
+        private DeploymentEventDto next() throws InterruptedException {
+            DeploymentEventDto event = events.poll(5, TimeUnit.SECONDS);
+            Assert.assertNotNull(event);
+            return event;
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.tomspizza.k8api.service;
+
+import org.junit.Assert;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+
+public class IngressRouteIndexTest {
+
+    @Test
+    public void testRepairsOnlyDirtyNames() {
+        IngressRouteIndex index = new IngressRouteIndex();
+        index.updateService("ns", "a", true, 0L);
+        index.updateDeployment("ns", "a", true, 0L);
+        index.updateService("ns", "b", true, 0L);
+        index.updateDeployment("ns", "b", true, 0L);
+        index.updateIngress("nginx-gateway", new HashSet<>(Arrays.asList("b", "c")), 0L);
+
+        Map<String, Boolean> repairs = index.drain(100L, 100L);
+        Assert.assertEquals(2, repairs.size());
+        Assert.assertEquals(Boolean.TRUE, repairs.get("a"));
+        Assert.assertEquals(Boolean.FALSE, repairs.get("c"));
+        Assert.assertTrue(index.drain(200L, 100L).isEmpty());
+
+        index.updateDeployment("ns", "b", false, 300L);
+        Assert.assertTrue(index.drain(350L, 100L).isEmpty());
+        Assert.assertEquals(Collections.singletonMap("b", false), index.drain(400L, 100L));
+    }
+
+    @Test
+    public void testServiceAndDeploymentMustShareNamespace() {
+        IngressRouteIndex index = new IngressRouteIndex();
+        index.updateService("ns1", "a", true, 0L);
+        index.updateDeployment("ns2", "a", true, 0L);
+        Assert.assertTrue(index.drain(0L, 0L).isEmpty());
+
+        index.updateIngress("nginx-gateway", Collections.singleton("a"), 0L);
+        Assert.assertEquals(Collections.singletonMap("a", false), index.drain(0L, 0L));
+
+        index.markAllDirty(0L);
+        Assert.assertEquals(1, index.getDirtyCount());
+    }
+}
@@ -0,0 +1,103 @@
+package com.tomspizza.k8api.service;
+
+import com.tomspizza.k8api.dto.K8sDto;
+import com.tomspizza.k8api.dto.OperationDto;
+import com.tomspizza.k8api.exception.TooManyRequestsException;
+import org.junit.Assert;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+public class OperationRegistryTest {
+
+    private final ExecutorService executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(1), new ThreadPoolExecutor.AbortPolicy());
+
+    private final OperationRegistry registry = new OperationRegistry(executor);
+
+    @AfterEach
+    public void tearDown() {
+        executor.shutdownNow();
+        registry.stop();
+    }
+
+    @Test
+    public void testRunsAndRecordsSteps() throws Exception {
+        OperationDto operation = registry.submit("deploy", k8sDto("a"), o -> {
+            o.step("namespace");
+            o.step("deployment");
+        });
+
+        operation.getCompletion().get(5, TimeUnit.SECONDS);
+        Assert.assertEquals(OperationDto.State.SUCCEEDED, operation.getState());
+        Assert.assertEquals(2, operation.getSteps().size());
+        Assert.assertSame(operation, registry.get(operation.getId()).orElse(null));
+    }
+
+    @Test
+    public void testFailure() throws Exception {
+        OperationDto operation = registry.submit("delete", k8sDto("a"), o -> {
+            throw new IllegalStateException("forbidden");
+        });
+
+        operation.getCompletion().get(5, TimeUnit.SECONDS);
+        Assert.assertEquals(OperationDto.State.FAILED, operation.getState());
+        Assert.assertEquals("forbidden", operation.getMessage());
+    }
+
+    @Test
+    public void testEvictsFinishedOperationsAfterTtl() throws Exception {
+        ReflectionTestUtils.setField(registry, "ttl", 100L);
+        CountDownLatch release = new CountDownLatch(1);
+        OperationDto finished = registry.submit("deploy", k8sDto("a"), o -> {
+        });
+        finished.getCompletion().get(5, TimeUnit.SECONDS);
+        OperationDto running = registry.submit("deploy", k8sDto("b"), o -> await(release));
+
+        registry.evict();
+        Assert.assertEquals(2, registry.size());
+
+        Thread.sleep(150);
+        registry.evict();
+        Assert.assertFalse(registry.get(finished.getId()).isPresent());
+        Assert.assertTrue(registry.get(running.getId()).isPresent());
+        release.countDown();
+    }
+
+    @Test
+    public void testRejectsWhenQueueIsFull() {
+        CountDownLatch release = new CountDownLatch(1);
+        registry.submit("deploy", k8sDto("a"), o -> await(release));
+        registry.submit("deploy", k8sDto("b"), o -> await(release));
+        try {
+            registry.submit("deploy", k8sDto("c"), o -> {
+            });
+            Assert.fail();
+        } catch (TooManyRequestsException e) {
+            Assert.assertEquals(2, registry.size());
+        } finally {
+            release.countDown();
+        }
+    }
+
+    private static K8sDto k8sDto(String serviceName) {
+        K8sDto k8sDto = new K8sDto();
+        k8sDto.setNamespace("ns");
+        k8sDto.setServiceName(serviceName);
+        return k8sDto;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.tomspizza.k8api.service;
+
+import org.junit.Assert;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+public class ScaleCoordinatorTest {
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(2);
+
+    @Test
+    public void testUncontendedScaleIsWrittenAtOnce() throws Exception {
+        ScaleCoordinator coordinator = new ScaleCoordinator(60000, executor,
+                (cluster, namespace, serviceName, replicas) -> replicas);
+
+        Assert.assertEquals(Integer.valueOf(2), coordinator.submit("default", "ns", "a", 2).get(5, TimeUnit.SECONDS));
+        Assert.assertEquals(Integer.valueOf(3), coordinator.submit("default", "ns", "a", 3).get(5, TimeUnit.SECONDS));
+        coordinator.shutdown();
+        executor.shutdown();
+    }
+
+    @Test
+    public void testLastWriterWinsUnderContention() throws Exception {
+        List<String> writes = new CopyOnWriteArrayList<>();
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ScaleCoordinator coordinator = new ScaleCoordinator(100, executor, (cluster, namespace, serviceName, replicas) -> {
+            writes.add(serviceName + "=" + replicas);
+            writing.countDown();
+            await(release);
+            return replicas;
+        });
+
+        CompletableFuture<Integer> a = coordinator.submit("default", "ns", "a", 2);
+        Assert.assertTrue(writing.await(5, TimeUnit.SECONDS));
+        CompletableFuture<Integer> b = coordinator.submit("default", "ns", "a", 5);
+        CompletableFuture<Integer> c = coordinator.submit("default", "ns", "a", 3);
+        release.countDown();
+
+        Assert.assertEquals(Integer.valueOf(2), a.get(5, TimeUnit.SECONDS));
+        Assert.assertEquals(Integer.valueOf(3), b.get(5, TimeUnit.SECONDS));
+        Assert.assertEquals(Integer.valueOf(3), c.get(5, TimeUnit.SECONDS));
+        Assert.assertEquals(Arrays.asList("a=2", "a=3"), writes);
+        coordinator.shutdown();
+        executor.shutdown();
+    }
+
+    @Test
+    public void testWriteOnCallerDoesNotBlockSubmit() throws Exception {
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        // runs every write on the submitting thread, like CallerRunsPolicy when the pool is saturated
+        ScaleCoordinator coordinator = new ScaleCoordinator(10, Runnable::run, (cluster, namespace, serviceName, replicas) -> {
+            if ("a".equals(serviceName)) {
+                writing.countDown();
+                await(release);
+            }
+            return replicas;
+        });
+
+        CompletableFuture<Integer> a = coordinator.submit("default", "ns", "a", 2);
+        Assert.assertTrue(writing.await(5, TimeUnit.SECONDS));
+        CompletableFuture<CompletableFuture<Integer>> b = CompletableFuture.supplyAsync(
+                () -> coordinator.submit("default", "ns", "b", 3), executor);
+
+        Assert.assertNotNull(b.get(1, TimeUnit.SECONDS));
+        release.countDown();
+        Assert.assertEquals(Integer.valueOf(2), a.get(5, TimeUnit.SECONDS));
+        Assert.assertEquals(Integer.valueOf(3), b.get().get(5, TimeUnit.SECONDS));
+        coordinator.shutdown();
+        executor.shutdown();
+    }
+
+    @Test
+    public void testFailure() {
+        ScaleCoordinator coordinator = new ScaleCoordinator(10, executor, (cluster, namespace, serviceName, replicas) -> {
+            throw new IllegalStateException("not found");
+        });
+
+        try {
+            coordinator.submit("default", "ns", "a", 2).join();
+            Assert.fail();
+        } catch (CompletionException e) {
+            Assert.assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+        coordinator.shutdown();
+        executor.shutdown();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
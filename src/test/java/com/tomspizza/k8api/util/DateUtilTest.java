@@ -52,4 +52,13 @@ public class DateUtilTest {
         String age = DateUtil.getAge("2021-08-06T21:15:08Z", otherTime);
         Assert.assertEquals("0m", age);
     }
+
+    @Test
+    public void testGetAgeMillis() {
+        long start = DateUtil.toEpochMillis("2021-08-06T21:15:08Z");
+
+        Assert.assertEquals("4d", DateUtil.getAge(start, DateUtil.toEpochMillis("2021-08-10T23:56:08Z")));
+        Assert.assertEquals("41m", DateUtil.getAge(start, DateUtil.toEpochMillis("2021-08-06T21:56:08Z")));
+        Assert.assertEquals("1200d", DateUtil.getAge(start, start + 1200L * 24 * 3600 * 1000));
+    }
 }
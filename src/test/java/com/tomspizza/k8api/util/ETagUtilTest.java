@@ -0,0 +1,32 @@
+package com.tomspizza.k8api.util;
+
+import io.fabric8.kubernetes.api.model.apps.Deployment;
+import io.fabric8.kubernetes.api.model.apps.DeploymentBuilder;
+import org.junit.Assert;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+public class ETagUtilTest {
+
+    @Test
+    public void testOrderIndependent() {
+        Assert.assertEquals(ETagUtil.of(Arrays.asList(deployment("a", "1"), deployment("b", "2")), "ns"),
+                ETagUtil.of(Arrays.asList(deployment("b", "2"), deployment("a", "1")), "ns"));
+    }
+
+    @Test
+    public void testChanges() {
+        String etag = ETagUtil.of(Collections.singletonList(deployment("a", "1")), "ns", "http://10.0.0.1");
+
+        Assert.assertNotEquals(etag, ETagUtil.of(Collections.singletonList(deployment("a", "2")), "ns", "http://10.0.0.1"));
+        Assert.assertNotEquals(etag, ETagUtil.of(Collections.singletonList(deployment("a", "1")), "other", "http://10.0.0.1"));
+        Assert.assertNotEquals(etag, ETagUtil.of(Collections.singletonList(deployment("a", "1")), "ns", "http://10.0.0.2"));
+        Assert.assertNotEquals(ETagUtil.of(Collections.emptyList(), "ns", null), ETagUtil.of(Collections.emptyList(), null, "ns"));
+    }
+
+    private static Deployment deployment(String uid, String resourceVersion) {
+        return new DeploymentBuilder().withNewMetadata().withUid(uid).withResourceVersion(resourceVersion).endMetadata().build();
+    }
+}